@@ -0,0 +1,74 @@
+package com.example.demo;
+
+import jakarta.validation.constraints.Pattern;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Greeting endpoints served through {@link AsyncUserService}. The servlet thread is
+ * released as soon as the work is handed to the service pool.
+ */
+@RestController
+@Validated
+@RequestMapping("/async/hello")
+public class AsyncGreetingController {
+
+    private final AsyncUserService asyncUserService;
+
+    public AsyncGreetingController(AsyncUserService asyncUserService) {
+        this.asyncUserService = asyncUserService;
+    }
+
+    @GetMapping("/all")
+    public CompletableFuture<List<User>> getAllGreetings() {
+        return asyncUserService.getAllGreetings();
+    }
+
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<User>> getGreeting(@PathVariable String id) {
+        return asyncUserService.getGreetingById(id)
+                .thenApply(greeting -> greeting
+                        .map(found -> ResponseEntity.ok().eTag(ETags.of(found.getVersion())).body(found))
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    @PostMapping
+    public CompletableFuture<User> createGreeting(@RequestBody UserRequest request) {
+        return asyncUserService.createGreeting(request);
+    }
+
+    @PutMapping("/{id}")
+    public CompletableFuture<ResponseEntity<User>> updateGreeting(
+            @PathVariable
+            @Pattern(regexp = "[a-zA-Z0-9\\s]+", message = "ID can only contain alphanumeric characters")
+            String id,
+            @RequestBody UserRequest request) {
+        return asyncUserService.updateGreeting(id, request)
+                .thenApply(greeting -> greeting.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    @DeleteMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Void>> deleteGreeting(@PathVariable String id) {
+        return asyncUserService.deleteGreeting(id)
+                .thenApply(deleted -> deleted ? ResponseEntity.noContent().<Void>build() : ResponseEntity.notFound().<Void>build());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> invalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> saturated(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(Map.of("error", "Greeting service is busy, try again later"));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking form of {@link UserService}. Store work runs on a separate bounded
+ * pool, so callers such as servlet threads are free while it is in progress.
+ */
+public interface AsyncUserService {
+    CompletableFuture<List<User>> getAllGreetings();
+    CompletableFuture<Optional<User>> getGreetingById(String id);
+    CompletableFuture<User> createGreeting(UserRequest request);
+    CompletableFuture<Optional<User>> updateGreeting(String id, UserRequest request);
+    CompletableFuture<Boolean> deleteGreeting(String id);
+}
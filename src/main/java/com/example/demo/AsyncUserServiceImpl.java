@@ -0,0 +1,100 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs a {@link UserService} on a fixed size pool with a bounded queue. When both
+ * are full new calls fail fast with a {@link RejectedExecutionException} instead of
+ * queueing without limit.
+ */
+public class AsyncUserServiceImpl implements AsyncUserService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncUserServiceImpl.class);
+
+    private final UserService userService;
+    private final ThreadPoolExecutor executor;
+
+    public AsyncUserServiceImpl(UserService userService, int poolSize, int queueCapacity) {
+        if (poolSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Pool size and queue capacity must be positive");
+        }
+        this.userService = userService;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public CompletableFuture<List<User>> getAllGreetings() {
+        return submit(userService::getAllGreetings);
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> getGreetingById(String id) {
+        return submit(() -> userService.getGreetingById(id));
+    }
+
+    @Override
+    public CompletableFuture<User> createGreeting(UserRequest request) {
+        return submit(() -> userService.createGreeting(request));
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> updateGreeting(String id, UserRequest request) {
+        return submit(() -> userService.updateGreeting(id, request));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteGreeting(String id) {
+        return submit(() -> userService.deleteGreeting(id));
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> action) {
+        try {
+            return CompletableFuture.supplyAsync(action, executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Greeting service is saturated, rejecting request");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "greeting-service-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter over greeting ids. Answers "definitely absent" or "maybe present"
+ * using a fixed number of bits per key; at 10 bits and 7 hashes about 1% of
+ * absent ids are reported as maybe present.
+ */
+final class BloomFilter {
+
+    static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 7;
+
+    private final long[] words;
+
+    BloomFilter(int expectedKeys) {
+        this(new long[Math.max(1, (int) ((Math.max(expectedKeys, 1) * (long) BITS_PER_KEY + 63) / 64))]);
+    }
+
+    private BloomFilter(long[] words) {
+        this.words = words;
+    }
+
+    void add(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long bits = words.length * 64L;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long bits = words.length * 64L;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static BloomFilter readFrom(ByteBuffer buffer, int offset) {
+        long[] words = new long[buffer.getInt(offset)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong(offset + 4 + i * 8);
+        }
+        return new BloomFilter(words);
+    }
+
+    // Sequential ids must spread over the whole filter, so mix all bits (MurmurHash3 finalizer)
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class BulkGreetingController {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final int MAX_MULTI_GET_IDS = 1_000;
+
+    private final NdjsonBulkLoader bulkLoader;
+    private final UserDAO userDAO;
+
+    public record MultiGetRequest(List<String> ids) {
+    }
+
+    public record MultiGetResult(List<User> found, List<String> missing) {
+    }
+
+    public BulkGreetingController(NdjsonBulkLoader bulkLoader, UserDAO userDAO) {
+        this.bulkLoader = bulkLoader;
+        this.userDAO = userDAO;
+    }
+
+    /**
+     * Stores every valid line as a new greeting. Ids in the input are not kept; the
+     * store assigns new ones in input order.
+     */
+    @PostMapping(value = "/hello/import", consumes = NDJSON, produces = MediaType.APPLICATION_JSON_VALUE)
+    public NdjsonBulkLoader.ImportResult importGreetings(HttpServletRequest request) throws IOException {
+        return bulkLoader.importStream(request.getInputStream());
+    }
+
+    @GetMapping(value = "/hello/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportGreetings() {
+        StreamingResponseBody body = bulkLoader::export;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    @DeleteMapping("/hello/bulk")
+    public Map<String, Integer> deleteGreetings(@RequestParam(required = false) String namePrefix,
+                                                @RequestParam(required = false) String messageContains,
+                                                @RequestParam(required = false) Long idFrom,
+                                                @RequestParam(required = false) Long idTo) {
+        GreetingFilter filter = filter(namePrefix, messageContains, idFrom, idTo);
+        return Map.of("affected", userDAO.deleteWhere(filter));
+    }
+
+    /**
+     * Applies the name and message of the body, whichever are set, to every matching greeting.
+     */
+    @PutMapping("/hello/bulk")
+    public Map<String, Integer> updateGreetings(@RequestParam(required = false) String namePrefix,
+                                                @RequestParam(required = false) String messageContains,
+                                                @RequestParam(required = false) Long idFrom,
+                                                @RequestParam(required = false) Long idTo,
+                                                @RequestBody UserRequest request) {
+        GreetingFilter filter = filter(namePrefix, messageContains, idFrom, idTo);
+        if (request.getName() == null && request.getMessage() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Name or message is required");
+        }
+        int affected = userDAO.updateWhere(filter, greeting -> new User(greeting.getId(),
+                request.getMessage() != null ? request.getMessage() : greeting.getMessage(),
+                request.getName() != null ? request.getName() : greeting.getName()));
+        return Map.of("affected", affected);
+    }
+
+    /**
+     * Fetches many greetings in one call, e.g. {@code GET /hello?ids=1,2,3}.
+     */
+    @GetMapping(value = "/hello", params = "ids")
+    public MultiGetResult getGreetings(@RequestParam List<String> ids) {
+        return multiGet(ids);
+    }
+
+    /**
+     * Same as {@code GET /hello?ids=} for id lists too long for a query string.
+     */
+    @PostMapping("/hello/multi-get")
+    public MultiGetResult getGreetings(@RequestBody MultiGetRequest request) {
+        if (request.ids() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids are required");
+        }
+        return multiGet(request.ids());
+    }
+
+    private MultiGetResult multiGet(List<String> ids) {
+        // Repeated ids are answered once
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null && !id.isBlank()) {
+                distinct.add(id.trim());
+            }
+        }
+        if (distinct.size() > MAX_MULTI_GET_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_MULTI_GET_IDS + " ids per request");
+        }
+        Map<String, User> found = userDAO.findAllById(distinct);
+        List<String> missing = new ArrayList<>();
+        for (String id : distinct) {
+            if (!found.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        return new MultiGetResult(new ArrayList<>(found.values()), missing);
+    }
+
+    private static GreetingFilter filter(String namePrefix, String messageContains, Long idFrom, Long idTo) {
+        try {
+            return new GreetingFilter(namePrefix, messageContains, idFrom, idTo);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo;
+
+/**
+ * Entity tags for greetings, derived from the greeting version.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Whether an {@code If-Match} header lists {@code version}. If-Match uses strong
+     * comparison, so weak tags never match.
+     */
+    static boolean matches(String ifMatch, long version) {
+        String expected = of(version);
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || tag.equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
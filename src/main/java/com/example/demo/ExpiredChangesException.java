@@ -0,0 +1,27 @@
+package com.example.demo;
+
+/**
+ * Thrown when changes since a sequence are asked for but the history no longer
+ * reaches back that far, so the caller has to fetch every greeting again.
+ */
+public class ExpiredChangesException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long since;
+    private final long horizon;
+
+    public ExpiredChangesException(long since, long horizon) {
+        super("Changes since " + since + " are no longer available, the oldest complete history starts at " + horizon);
+        this.since = since;
+        this.horizon = horizon;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public long getHorizon() {
+        return horizon;
+    }
+}
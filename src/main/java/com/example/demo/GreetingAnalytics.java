@@ -0,0 +1,136 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Greeting statistics maintained incrementally from store changes, so no query
+ * has to scan the greetings. Per-name counts of current greetings are exact; the
+ * most active names (by creates and updates) come from fixed size sketches. Names
+ * are spread over the sketches by hash, so each name is counted by exactly one of
+ * them and writes of different names rarely wait for each other.
+ *
+ * <p>Restored greetings are counted by the first query rather than at startup.
+ * Counts are only ever added to or taken from, so a restored greeting changed
+ * before then still ends up counted right.
+ */
+public class GreetingAnalytics implements GreetingListener {
+
+    private static final int ACTIVITY_STRIPES = 16;
+
+    private final Map<String, Long> greetingsPerName = new ConcurrentHashMap<>();
+    private final HeavyHitters[] activeNames = new HeavyHitters[ACTIVITY_STRIPES];
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong creates = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong removals = new AtomicLong();
+    private final Queue<RestoredNames> uncounted = new ConcurrentLinkedQueue<>();
+
+    public record Totals(long greetings, long distinctNames, long creates, long updates, long removals) {
+    }
+
+    public GreetingAnalytics(int topCapacity) {
+        int stripeCapacity = Math.max(1, (topCapacity + ACTIVITY_STRIPES - 1) / ACTIVITY_STRIPES);
+        for (int i = 0; i < ACTIVITY_STRIPES; i++) {
+            activeNames[i] = new HeavyHitters(stripeCapacity);
+        }
+    }
+
+    @Override
+    public void onSaved(User greeting) {
+        creates.incrementAndGet();
+        added(greeting.getName());
+        recordActivity(greeting.getName());
+    }
+
+    @Override
+    public void onUpdated(User previous, User current) {
+        updates.incrementAndGet();
+        if (!Objects.equals(previous.getName(), current.getName())) {
+            removed(previous.getName());
+            added(current.getName());
+        }
+        recordActivity(current.getName());
+    }
+
+    @Override
+    public void onRemoved(User greeting) {
+        removals.incrementAndGet();
+        removed(greeting.getName());
+    }
+
+    @Override
+    public void onRestored(long lastId, RestoredNames names) {
+        uncounted.add(names);
+    }
+
+    public long countForName(String name) {
+        countRestored();
+        return greetingsPerName.getOrDefault(name, 0L);
+    }
+
+    public List<HeavyHitters.Estimate> mostActiveNames(int limit) {
+        List<HeavyHitters.Estimate> merged = new ArrayList<>();
+        for (HeavyHitters stripe : activeNames) {
+            synchronized (stripe) {
+                merged.addAll(stripe.top(limit));
+            }
+        }
+        merged.sort(Comparator.comparingLong(HeavyHitters.Estimate::count).reversed());
+        return merged.size() > limit ? List.copyOf(merged.subList(0, limit)) : merged;
+    }
+
+    public Totals totals() {
+        countRestored();
+        return new Totals(total.get(), greetingsPerName.size(), creates.get(), updates.get(), removals.get());
+    }
+
+    private void added(String name) {
+        total.incrementAndGet();
+        count(name, 1);
+    }
+
+    private void removed(String name) {
+        total.decrementAndGet();
+        // A restored greeting not counted yet takes its name below zero until it is
+        count(name, -1);
+    }
+
+    private void count(String name, long change) {
+        if (name != null) {
+            // Drop names that no longer have greetings so the map only holds live names
+            greetingsPerName.merge(name, change, (count, delta) -> count + delta == 0 ? null : count + delta);
+        }
+    }
+
+    // A restore is taken off the queue only once counted, so a concurrent query waits for it rather than skipping it
+    private void countRestored() {
+        if (uncounted.isEmpty()) {
+            return;
+        }
+        synchronized (uncounted) {
+            RestoredNames names;
+            while ((names = uncounted.peek()) != null) {
+                names.forEach(this::added);
+                uncounted.remove();
+            }
+        }
+    }
+
+    private void recordActivity(String name) {
+        if (name != null) {
+            int hash = name.hashCode();
+            HeavyHitters stripe = activeNames[(hash ^ (hash >>> 16)) & (ACTIVITY_STRIPES - 1)];
+            synchronized (stripe) {
+                stripe.offer(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@Validated
+public class GreetingAnalyticsController {
+
+    private final GreetingAnalytics analytics;
+
+    public GreetingAnalyticsController(GreetingAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    @GetMapping("/hello/stats")
+    public GreetingAnalytics.Totals totals() {
+        return analytics.totals();
+    }
+
+    @GetMapping("/hello/stats/names/{name}")
+    public Map<String, Object> countForName(@PathVariable String name) {
+        return Map.of("name", name, "greetings", analytics.countForName(name));
+    }
+
+    @GetMapping("/hello/stats/top")
+    public List<HeavyHitters.Estimate> mostActiveNames(
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 1000, message = "Limit must be at most 1000")
+            int limit) {
+        return analytics.mostActiveNames(limit);
+    }
+}
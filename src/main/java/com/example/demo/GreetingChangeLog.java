@@ -0,0 +1,221 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numbers every store change with an increasing sequence and keeps the latest
+ * change of each greeting ordered by that sequence, so a reader can ask for what
+ * changed since a sequence and pay only for the greetings that did. Removals are
+ * kept as tombstones, at most {@code maxTombstones} of them; once the oldest are
+ * dropped, readers from before them get an {@link ExpiredChangesException}.
+ * Sequences start over with the process, which is told apart by {@link #getEpoch()}.
+ *
+ * <p>Greetings restored when the store started are not indexed one by one. They form
+ * a baseline up to the highest restored id: sequences up to {@link #getBaseline()} are
+ * the ids of those greetings, read from the store itself, and changes are numbered
+ * after it.
+ *
+ * <p>Changes are recorded without a common lock. Sequences come from a counter and
+ * a change becomes visible to readers only once every earlier one has, so a reader
+ * never moves its cursor past a change that is still being recorded. Writers never
+ * wait for each other, as they are called under the store's locks: each one marks its
+ * change as recorded, and whichever writer finds the next sequence marked moves the
+ * visible sequence over it. Changes of one greeting are serialized by the store.
+ */
+public class GreetingChangeLog implements GreetingListener {
+
+    private final String epoch = UUID.randomUUID().toString();
+    private final NavigableMap<Long, Change> bySequence = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> latest = new ConcurrentHashMap<>();
+    private final Queue<Long> tombstones = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tombstoneCount = new AtomicInteger();
+    private final int maxTombstones;
+    private final AtomicLong sequence = new AtomicLong();
+    // Highest sequence up to which every change is indexed
+    private final AtomicLong published = new AtomicLong();
+    // Changes indexed above the published sequence, waiting for an earlier one to finish
+    private final Set<Long> recorded = ConcurrentHashMap.newKeySet();
+    private final AtomicLong horizon = new AtomicLong();
+    private volatile long baseline;
+
+    /**
+     * The latest change of a greeting; {@code deleted} marks a tombstone.
+     */
+    public record Change(long sequence, String id, boolean deleted) {
+    }
+
+    /**
+     * Changes after a sequence in order. Pass {@code next} as the sequence of the
+     * following call; {@code hasMore} is set when the page was cut off at its limit.
+     */
+    public record Page(List<Change> changes, long next, boolean hasMore) {
+    }
+
+    public GreetingChangeLog(int maxTombstones) {
+        if (maxTombstones <= 0) {
+            throw new IllegalArgumentException("Change log needs room for at least one tombstone");
+        }
+        this.maxTombstones = maxTombstones;
+    }
+
+    @Override
+    public void onSaved(User greeting) {
+        record(greeting.getId(), false);
+    }
+
+    @Override
+    public void onUpdated(User previous, User current) {
+        record(current.getId(), false);
+    }
+
+    @Override
+    public void onRemoved(User greeting) {
+        record(greeting.getId(), true);
+    }
+
+    /**
+     * Starts numbering changes after {@code lastId}. Only possible before the first
+     * change is recorded, as earlier changes already hold lower sequences.
+     */
+    @Override
+    public synchronized void onRestored(long lastId, RestoredNames names) {
+        if (sequence.get() != baseline) {
+            throw new IllegalStateException("Greetings must be restored before the first change is recorded");
+        }
+        if (lastId > baseline) {
+            baseline = lastId;
+            sequence.set(lastId);
+            published.set(lastId);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} changes with a sequence above {@code since}. The
+     * baseline holds no changes; callers read it from the store, see {@link #getBaseline()}.
+     */
+    public Page changesSince(long since, int limit) {
+        if (since < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Sequence must not be negative and limit must be positive");
+        }
+        long upTo = getSequence();
+        if (since > upTo) {
+            // A sequence handed out by an earlier process
+            throw new ExpiredChangesException(since, horizon.get());
+        }
+        List<Change> changes = new ArrayList<>(Math.min(limit, 1024));
+        long next = upTo;
+        boolean hasMore = false;
+        for (Change change : bySequence.subMap(since, false, upTo, true).values()) {
+            if (changes.size() == limit) {
+                next = changes.get(limit - 1).sequence();
+                hasMore = true;
+                break;
+            }
+            changes.add(change);
+        }
+        // Checked last: a tombstone dropped while reading may be one this reader has not seen
+        if (since < horizon.get()) {
+            throw new ExpiredChangesException(since, horizon.get());
+        }
+        return new Page(changes, next, hasMore);
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * The latest sequence readers can see; changes being recorded may already hold higher ones.
+     */
+    public long getSequence() {
+        return published.get();
+    }
+
+    /**
+     * Sequences up to this one are the ids of greetings restored when the store started;
+     * 0 when nothing was restored.
+     */
+    public long getBaseline() {
+        return baseline;
+    }
+
+    /**
+     * Changes before this sequence may be incomplete; 0 while no tombstone was dropped.
+     */
+    public long getHorizon() {
+        return horizon.get();
+    }
+
+    public int getTombstoneCount() {
+        return tombstoneCount.get();
+    }
+
+    public int size() {
+        return bySequence.size();
+    }
+
+    private void record(String id, boolean deleted) {
+        long changeSequence = sequence.incrementAndGet();
+        try {
+            bySequence.put(changeSequence, new Change(changeSequence, id, deleted));
+            Long previous = latest.put(id, changeSequence);
+            if (previous != null) {
+                bySequence.remove(previous);
+            }
+        } finally {
+            publish(changeSequence);
+        }
+        if (deleted) {
+            tombstones.add(changeSequence);
+            tombstoneCount.incrementAndGet();
+            dropOldestTombstones();
+        }
+    }
+
+    /**
+     * Publishes the longest run of recorded changes after the published sequence.
+     * A writer that finds an earlier change still in progress leaves its own to the
+     * writer of that change: it marked its change before looking, so either it sees
+     * the run complete or the earlier writer, which looks after advancing, sees its mark.
+     */
+    private void publish(long changeSequence) {
+        recorded.add(changeSequence);
+        while (true) {
+            long current = published.get();
+            if (!recorded.contains(current + 1)) {
+                return;
+            }
+            if (published.compareAndSet(current, current + 1)) {
+                recorded.remove(current + 1);
+            }
+        }
+    }
+
+    private void dropOldestTombstones() {
+        while (tombstoneCount.get() > maxTombstones) {
+            Long dropped = tombstones.poll();
+            if (dropped == null) {
+                return;
+            }
+            tombstoneCount.decrementAndGet();
+            Change change = bySequence.get(dropped);
+            // Skip tombstones already replaced by a later change of the same id
+            if (change != null && change.deleted()) {
+                bySequence.remove(dropped);
+                latest.remove(change.id(), dropped);
+                horizon.accumulateAndGet(dropped, Math::max);
+            }
+        }
+    }
+}
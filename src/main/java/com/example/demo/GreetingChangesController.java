@@ -0,0 +1,109 @@
+package com.example.demo;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets downstream caches follow the store instead of re-reading all of it. A client
+ * starts at {@code since=0}, applies each page and continues from its {@code next}.
+ */
+@RestController
+public class GreetingChangesController {
+
+    static final int MAX_PAGE_SIZE = 1_000;
+
+    private final GreetingChangeLog changeLog;
+    private final UserDAO userDAO;
+
+    /**
+     * A changed greeting with its current content, or without content once deleted.
+     */
+    public record ChangedGreeting(long sequence, String id, boolean deleted, User greeting) {
+    }
+
+    public record ChangesPage(String epoch, long next, boolean hasMore, List<ChangedGreeting> changes) {
+    }
+
+    public GreetingChangesController(GreetingChangeLog changeLog, UserDAO userDAO) {
+        this.changeLog = changeLog;
+        this.userDAO = userDAO;
+    }
+
+    /**
+     * Greetings created, updated or deleted after {@code since}. Passing the
+     * {@code epoch} of the previous page makes a restart of the store, which starts
+     * the sequence over, answer 410 like any other cursor that can no longer be served.
+     */
+    @GetMapping("/hello/changes")
+    public ChangesPage getChanges(@RequestParam long since,
+                                  @RequestParam(required = false) String epoch,
+                                  @RequestParam(defaultValue = "100") int limit) {
+        if (since < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "since must not be negative");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (epoch != null && !epoch.equals(changeLog.getEpoch())) {
+            throw new ExpiredChangesException(since, changeLog.getHorizon());
+        }
+
+        if (since < changeLog.getBaseline()) {
+            return baselinePage(since, limit);
+        }
+        GreetingChangeLog.Page page = changeLog.changesSince(since, limit);
+        List<String> ids = new ArrayList<>();
+        for (GreetingChangeLog.Change change : page.changes()) {
+            if (!change.deleted()) {
+                ids.add(change.id());
+            }
+        }
+        Map<String, User> current = userDAO.findAllById(ids);
+        List<ChangedGreeting> changes = new ArrayList<>(page.changes().size());
+        for (GreetingChangeLog.Change change : page.changes()) {
+            // A greeting gone since its change was indexed is reported deleted; its tombstone follows later
+            User greeting = change.deleted() ? null : current.get(change.id());
+            changes.add(new ChangedGreeting(change.sequence(), change.id(), greeting == null, greeting));
+        }
+        return new ChangesPage(changeLog.getEpoch(), page.next(), page.hasMore(), changes);
+    }
+
+    /**
+     * Restored greetings still in the store, in id order and numbered by their ids. A
+     * restored greeting changed since is also reported again by the change log.
+     */
+    private ChangesPage baselinePage(long since, int limit) {
+        long baseline = changeLog.getBaseline();
+        if (since < changeLog.getHorizon()) {
+            throw new ExpiredChangesException(since, changeLog.getHorizon());
+        }
+        List<ChangedGreeting> changes = new ArrayList<>(limit);
+        for (User greeting : userDAO.findPage(since, limit)) {
+            long id = Long.parseLong(greeting.getId());
+            if (id > baseline) {
+                break;
+            }
+            changes.add(new ChangedGreeting(id, greeting.getId(), false, greeting));
+        }
+        boolean baselineLeft = changes.size() == limit && changes.get(limit - 1).sequence() < baseline;
+        long next = baselineLeft ? changes.get(limit - 1).sequence() : baseline;
+        return new ChangesPage(changeLog.getEpoch(), next, baselineLeft || changeLog.getSequence() > baseline, changes);
+    }
+
+    @ExceptionHandler(ExpiredChangesException.class)
+    public ResponseEntity<Map<String, Object>> expired(ExpiredChangesException e) {
+        return ResponseEntity.status(HttpStatus.GONE).body(Map.of(
+                "error", "Changes since " + e.getSince() + " are no longer available, fetch /hello/all and continue from the current sequence",
+                "epoch", changeLog.getEpoch(),
+                "sequence", changeLog.getSequence()));
+    }
+}
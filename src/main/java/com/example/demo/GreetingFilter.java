@@ -0,0 +1,30 @@
+package com.example.demo;
+
+/**
+ * Selects greetings for bulk updates and deletes. Every criterion that is set
+ * must match; unset criteria are ignored. The id range is inclusive.
+ */
+public record GreetingFilter(String namePrefix, String messageContains, Long idFrom, Long idTo) {
+
+    public GreetingFilter {
+        if (namePrefix == null && messageContains == null && idFrom == null && idTo == null) {
+            throw new IllegalArgumentException("At least one filter criterion is required");
+        }
+        if (idFrom != null && idTo != null && idFrom > idTo) {
+            throw new IllegalArgumentException("idFrom must not be greater than idTo");
+        }
+    }
+
+    public boolean matchesId(long id) {
+        return (idFrom == null || id >= idFrom) && (idTo == null || id <= idTo);
+    }
+
+    public boolean needsContent() {
+        return namePrefix != null || messageContains != null;
+    }
+
+    public boolean matchesContent(User greeting) {
+        return (namePrefix == null || (greeting.getName() != null && greeting.getName().startsWith(namePrefix)))
+                && (messageContains == null || (greeting.getMessage() != null && greeting.getMessage().contains(messageContains)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves {@link GreetingGrpcService} next to the REST endpoints, sharing their store.
+ */
+@Component
+@ConditionalOnProperty("greetings.grpc.port")
+public class GreetingGrpcServer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(GreetingGrpcServer.class);
+
+    private final UserDAO userDAO;
+    private final int port;
+    private volatile Server server;
+
+    public GreetingGrpcServer(UserDAO userDAO, @Value("${greetings.grpc.port}") int port) {
+        this.userDAO = userDAO;
+        this.port = port;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server = Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create())
+                    .addService(new GreetingGrpcService(userDAO))
+                    .build()
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start gRPC server on port " + port, e);
+        }
+        log.info("gRPC greeting service listening on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        Server running = server;
+        if (running == null) {
+            return;
+        }
+        running.shutdown();
+        try {
+            if (!running.awaitTermination(10, TimeUnit.SECONDS)) {
+                running.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            running.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * The port actually bound, which differs from the configured one when that is 0.
+     */
+    public int getPort() {
+        return server == null ? port : server.getPort();
+    }
+}
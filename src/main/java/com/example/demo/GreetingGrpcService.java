@@ -0,0 +1,182 @@
+package com.example.demo;
+
+import com.example.demo.grpc.CreateGreetingRequest;
+import com.example.demo.grpc.CreateGreetingsResponse;
+import com.example.demo.grpc.DeleteGreetingRequest;
+import com.example.demo.grpc.DeleteGreetingResponse;
+import com.example.demo.grpc.GetGreetingRequest;
+import com.example.demo.grpc.Greeting;
+import com.example.demo.grpc.GreetingServiceGrpc;
+import com.example.demo.grpc.ListGreetingsRequest;
+import com.example.demo.grpc.UpdateGreetingRequest;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * gRPC form of the greeting operations, backed by the same store as the REST
+ * endpoints. Names and messages are stored as sent, like {@code POST /hello}.
+ */
+public class GreetingGrpcService extends GreetingServiceGrpc.GreetingServiceImplBase {
+
+    private static final Logger log = LoggerFactory.getLogger(GreetingGrpcService.class);
+
+    static final int CREATE_BATCH_SIZE = 500;
+    static final int LIST_PAGE_SIZE = 500;
+
+    private final UserDAO userDAO;
+
+    public GreetingGrpcService(UserDAO userDAO) {
+        this.userDAO = userDAO;
+    }
+
+    @Override
+    public void getGreeting(GetGreetingRequest request, StreamObserver<Greeting> responseObserver) {
+        Optional<User> greeting = userDAO.findById(request.getId());
+        if (greeting.isEmpty()) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("No greeting with id " + request.getId()).asRuntimeException());
+            return;
+        }
+        responseObserver.onNext(toProto(greeting.get()));
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Sends greetings only while the client keeps up, reading the store a page at a
+     * time, so neither a slow reader nor a large store makes the server hold more
+     * than one page of the list.
+     */
+    @Override
+    public void listGreetings(ListGreetingsRequest request, StreamObserver<Greeting> responseObserver) {
+        ServerCallStreamObserver<Greeting> call = (ServerCallStreamObserver<Greeting>) responseObserver;
+        boolean[] completed = {false};
+        Runnable drain = new Runnable() {
+            private Iterator<User> page = Collections.emptyIterator();
+            private long lastId;
+            private boolean lastPage;
+
+            @Override
+            public void run() {
+                while (!completed[0]) {
+                    if (!page.hasNext() && !lastPage) {
+                        List<User> next = userDAO.findPage(lastId, LIST_PAGE_SIZE);
+                        lastPage = next.size() < LIST_PAGE_SIZE;
+                        page = next.iterator();
+                    }
+                    if (!page.hasNext()) {
+                        completed[0] = true;
+                        call.onCompleted();
+                    } else if (call.isReady()) {
+                        User greeting = page.next();
+                        lastId = Long.parseLong(greeting.getId());
+                        call.onNext(toProto(greeting));
+                    } else {
+                        return;
+                    }
+                }
+            }
+        };
+        call.setOnCancelHandler(() -> completed[0] = true);
+        call.setOnReadyHandler(drain);
+        drain.run();
+    }
+
+    @Override
+    public StreamObserver<CreateGreetingRequest> createGreetings(StreamObserver<CreateGreetingsResponse> responseObserver) {
+        return new StreamObserver<>() {
+            private final List<User> batch = new ArrayList<>(CREATE_BATCH_SIZE);
+            private final CreateGreetingsResponse.Builder response = CreateGreetingsResponse.newBuilder();
+
+            @Override
+            public void onNext(CreateGreetingRequest request) {
+                // Same rule as POST /hello: both name and message are required
+                if (request.getName().isBlank() || request.getMessage().isBlank()) {
+                    response.setRejected(response.getRejected() + 1);
+                    return;
+                }
+                batch.add(new User(null, request.getMessage(), request.getName()));
+                if (batch.size() == CREATE_BATCH_SIZE) {
+                    store();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // Batches already stored stay stored, as with a partial NDJSON import
+                log.warn("Client aborted greeting stream after {} greetings", response.getCreated(), t);
+            }
+
+            @Override
+            public void onCompleted() {
+                store();
+                responseObserver.onNext(response.build());
+                responseObserver.onCompleted();
+            }
+
+            private void store() {
+                if (batch.isEmpty()) {
+                    return;
+                }
+                List<User> saved = userDAO.saveAll(batch);
+                if (response.getFirstId().isEmpty()) {
+                    response.setFirstId(saved.get(0).getId());
+                }
+                response.setLastId(saved.get(saved.size() - 1).getId());
+                response.setCreated(response.getCreated() + batch.size());
+                batch.clear();
+            }
+        };
+    }
+
+    @Override
+    public void updateGreeting(UpdateGreetingRequest request, StreamObserver<Greeting> responseObserver) {
+        if (request.getName().isBlank() || request.getMessage().isBlank()) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("Name and message are required").asRuntimeException());
+            return;
+        }
+        User greeting = new User(request.getId(), request.getMessage(), request.getName());
+        Optional<User> updated;
+        try {
+            updated = request.hasExpectedVersion()
+                    ? userDAO.update(request.getId(), greeting, request.getExpectedVersion())
+                    : userDAO.update(request.getId(), greeting);
+        } catch (VersionConflictException e) {
+            responseObserver.onError(Status.ABORTED.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        }
+        if (updated.isEmpty()) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("No greeting with id " + request.getId()).asRuntimeException());
+            return;
+        }
+        responseObserver.onNext(toProto(updated.get()));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void deleteGreeting(DeleteGreetingRequest request, StreamObserver<DeleteGreetingResponse> responseObserver) {
+        responseObserver.onNext(DeleteGreetingResponse.newBuilder().setDeleted(userDAO.delete(request.getId())).build());
+        responseObserver.onCompleted();
+    }
+
+    static Greeting toProto(User greeting) {
+        Greeting.Builder builder = Greeting.newBuilder()
+                .setId(greeting.getId())
+                .setVersion(greeting.getVersion());
+        // Proto strings cannot be null; greetings created through UserService have no name
+        if (greeting.getName() != null) {
+            builder.setName(greeting.getName());
+        }
+        if (greeting.getMessage() != null) {
+            builder.setMessage(greeting.getMessage());
+        }
+        return builder.build();
+    }
+}
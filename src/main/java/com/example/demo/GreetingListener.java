@@ -0,0 +1,36 @@
+package com.example.demo;
+
+import java.util.function.Consumer;
+
+/**
+ * Notified by the store on every change, while the lock of the affected
+ * partition is held. Changes in different partitions are reported
+ * concurrently, so implementations must be thread safe, quick, and must not
+ * call back into the store or modify the greetings they are given.
+ */
+public interface GreetingListener {
+
+    void onSaved(User greeting);
+
+    void onUpdated(User previous, User current);
+
+    // Also called for greetings that expire or are evicted
+    void onRemoved(User greeting);
+
+    /**
+     * Greetings the store held before it reported any change, such as those restored
+     * from a snapshot, reported once for all of them rather than one by one and without
+     * a lock held. Their ids are at most {@code lastId}. Nothing is decoded up front;
+     * {@code names} decodes their names, as they were when restored, while it is walked.
+     */
+    default void onRestored(long lastId, RestoredNames names) {
+    }
+
+    /**
+     * The names of restored greetings, one per greeting.
+     */
+    @FunctionalInterface
+    interface RestoredNames {
+        void forEach(Consumer<String> action);
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.demo;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable on-disk run of greetings sorted by id, read through a memory mapping.
+ * A sparse index of every {@link #INDEX_INTERVAL}th id and a Bloom filter are kept
+ * on the heap, so a lookup either skips the file or scans at most one index interval.
+ *
+ * <pre>
+ * header: int magic, int version, long generation, long coversGeneration, long lastId
+ * record: long id, byte flags, long version, name, message   (tombstones end after flags)
+ * index:  int entries, (long id, int offset) per entry
+ * bloom:  int words, long word per entry
+ * footer: long indexOffset, long bloomOffset, int count, int magic
+ * </pre>
+ *
+ * Strings are an int byte length (-1 for null) followed by UTF-8 bytes.
+ * {@code coversGeneration} is set on compaction output: every segment up to that
+ * generation was merged into it and can be deleted once the whole output is in place. {@code lastId} is the store's
+ * id counter when the segment was written, so ids are never handed out twice even
+ * after the greeting with the highest id was deleted and compacted away.
+ */
+final class GreetingSegment {
+
+    static final int INDEX_INTERVAL = 32;
+    private static final int MAGIC = 0x47525347; // "GRSG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8;
+    private static final int FOOTER_BYTES = 8 + 8 + 4 + 4;
+    private static final byte TOMBSTONE = 1;
+
+    /**
+     * A greeting as stored in a tier; a null greeting marks a deleted id.
+     */
+    record Stored(long id, User greeting) {
+        boolean deleted() {
+            return greeting == null;
+        }
+    }
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final long generation;
+    private final long coversGeneration;
+    private final long lastId;
+    private final int count;
+    private final int recordsEnd;
+    private final long[] indexIds;
+    private final int[] indexOffsets;
+    private final BloomFilter bloom;
+
+    private GreetingSegment(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        int size = buffer.capacity();
+        if (size < HEADER_BYTES + FOOTER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not a greeting segment: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported segment version " + buffer.getInt(4) + " in " + file);
+        }
+        this.generation = buffer.getLong(8);
+        this.coversGeneration = buffer.getLong(16);
+        this.lastId = buffer.getLong(24);
+        int indexOffset = (int) buffer.getLong(size - FOOTER_BYTES);
+        int bloomOffset = (int) buffer.getLong(size - FOOTER_BYTES + 8);
+        this.count = buffer.getInt(size - 8);
+        this.recordsEnd = indexOffset;
+
+        int entries = buffer.getInt(indexOffset);
+        this.indexIds = new long[entries];
+        this.indexOffsets = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            indexIds[i] = buffer.getLong(indexOffset + 4 + i * 12);
+            indexOffsets[i] = buffer.getInt(indexOffset + 4 + i * 12 + 8);
+        }
+        this.bloom = BloomFilter.readFrom(buffer, bloomOffset);
+    }
+
+    static GreetingSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Segment larger than 2 GB: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            return new GreetingSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    long coversGeneration() {
+        return coversGeneration;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long lastId() {
+        return lastId;
+    }
+
+    boolean mightContain(long id) {
+        return bloom.mightContain(id);
+    }
+
+    /**
+     * Returns the stored greeting or tombstone for {@code id}, or null if this segment has neither.
+     */
+    Stored find(long id) {
+        if (!bloom.mightContain(id)) {
+            return null;
+        }
+        int slot = floorIndex(id);
+        if (slot < 0) {
+            return null;
+        }
+        int offset = indexOffsets[slot];
+        for (int i = 0; i < INDEX_INTERVAL && offset < recordsEnd; i++) {
+            long recordId = buffer.getLong(offset);
+            if (recordId == id) {
+                return decode(offset);
+            }
+            if (recordId > id) {
+                return null;
+            }
+            offset = nextRecord(offset);
+        }
+        return null;
+    }
+
+    /**
+     * Iterates the records in id order, decoding each one as it is reached.
+     */
+    Iterator<Stored> iterator() {
+        return iterator(Long.MIN_VALUE);
+    }
+
+    /**
+     * Iterates the records with an id of at least {@code fromId}, starting from the
+     * nearest index entry.
+     */
+    Iterator<Stored> iterator(long fromId) {
+        int slot = floorIndex(fromId);
+        int start = slot < 0 ? HEADER_BYTES : indexOffsets[slot];
+        while (start < recordsEnd && buffer.getLong(start) < fromId) {
+            start = nextRecord(start);
+        }
+        int first = start;
+        return new Iterator<>() {
+            private int offset = first;
+
+            @Override
+            public boolean hasNext() {
+                return offset < recordsEnd;
+            }
+
+            @Override
+            public Stored next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Stored stored = decode(offset);
+                offset = nextRecord(offset);
+                return stored;
+            }
+        };
+    }
+
+    private int floorIndex(long id) {
+        int low = 0;
+        int high = indexIds.length - 1;
+        int floor = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (indexIds[mid] <= id) {
+                floor = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return floor;
+    }
+
+    private Stored decode(int offset) {
+        long id = buffer.getLong(offset);
+        if (buffer.get(offset + 8) == TOMBSTONE) {
+            return new Stored(id, null);
+        }
+        long version = buffer.getLong(offset + 9);
+        int nameOffset = offset + 17;
+        String name = readString(nameOffset);
+        String message = readString(nameOffset + stringLength(nameOffset));
+        return new Stored(id, new User(String.valueOf(id), message, name, version));
+    }
+
+    private int nextRecord(int offset) {
+        if (buffer.get(offset + 8) == TOMBSTONE) {
+            return offset + 9;
+        }
+        int nameOffset = offset + 17;
+        int messageOffset = nameOffset + stringLength(nameOffset);
+        return messageOffset + stringLength(messageOffset);
+    }
+
+    private int stringLength(int offset) {
+        return 4 + Math.max(buffer.getInt(offset), 0);
+    }
+
+    private String readString(int offset) {
+        int length = buffer.getInt(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a segment to a temporary file and moves it into place on {@link #commit()},
+     * once its content is on disk.
+     * Records must be written in ascending id order.
+     */
+    static final class Writer implements Closeable {
+        private final Path file;
+        private final Path tempFile;
+        private final DataOutputStream out;
+        private long position;
+        private long lastId = Long.MIN_VALUE;
+        private int count;
+        private long[] ids = new long[1024];
+        private long[] index = new long[64];
+        private int indexEntries;
+        private boolean committed;
+
+        Writer(Path file, long generation, long coversGeneration, long storeLastId) throws IOException {
+            this.file = file;
+            this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeLong(coversGeneration);
+            out.writeLong(storeLastId);
+            position = HEADER_BYTES;
+        }
+
+        void write(Stored stored) throws IOException {
+            long id = stored.id();
+            if (id <= lastId) {
+                throw new IllegalStateException("Segment records must be written in ascending id order");
+            }
+            if (count % INDEX_INTERVAL == 0) {
+                if (indexEntries * 2 == index.length) {
+                    index = Arrays.copyOf(index, index.length * 2);
+                }
+                index[indexEntries * 2] = id;
+                index[indexEntries * 2 + 1] = position;
+                indexEntries++;
+            }
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[count++] = id;
+            lastId = id;
+
+            out.writeLong(id);
+            position += 8;
+            if (stored.deleted()) {
+                out.writeByte(TOMBSTONE);
+                position += 1;
+            } else {
+                out.writeByte(0);
+                out.writeLong(stored.greeting().getVersion());
+                position += 9;
+                position += writeString(stored.greeting().getName());
+                position += writeString(stored.greeting().getMessage());
+            }
+        }
+
+        long size() {
+            return position;
+        }
+
+        int count() {
+            return count;
+        }
+
+        GreetingSegment commit() throws IOException {
+            long indexOffset = position;
+            out.writeInt(indexEntries);
+            for (int i = 0; i < indexEntries; i++) {
+                out.writeLong(index[i * 2]);
+                out.writeInt((int) index[i * 2 + 1]);
+            }
+            long bloomOffset = indexOffset + 4 + indexEntries * 12L;
+            BloomFilter bloom = new BloomFilter(count);
+            for (int i = 0; i < count; i++) {
+                bloom.add(ids[i]);
+            }
+            bloom.writeTo(out);
+            out.writeLong(indexOffset);
+            out.writeLong(bloomOffset);
+            out.writeInt(count);
+            out.writeInt(MAGIC);
+            out.close();
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return open(file);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(tempFile);
+            }
+        }
+
+        private int writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return 4;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            return 4 + bytes.length;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.demo;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary snapshot of the greeting store, read through a memory mapping.
+ * Opening a snapshot only maps the file; records are decoded one at a time when
+ * the store first touches them.
+ *
+ * <pre>
+ * header: int magic, int version, int count, long lastId
+ * record: int idLength, id, long version, int bodyLength, body
+ * body:   int nameLength, name, int messageLength, message   (length -1 for null)
+ * </pre>
+ *
+ * Version 1 files have no greeting version in their records; their greetings
+ * are read as version 1.
+ */
+public final class GreetingSnapshot {
+
+    private static final int MAGIC = 0x47524e53; // "GRNS"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final long lastId;
+    // Bytes taken by the greeting version in each record, 0 for version 1 files
+    private final int versionBytes;
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(String id, int offset);
+    }
+
+    private GreetingSnapshot(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a greeting snapshot: " + file);
+        }
+        int formatVersion = buffer.getInt(4);
+        if (formatVersion != 1 && formatVersion != VERSION) {
+            throw new IOException("Unsupported snapshot version " + formatVersion + " in " + file);
+        }
+        this.versionBytes = formatVersion == 1 ? 0 : 8;
+        this.count = buffer.getInt(8);
+        this.lastId = buffer.getLong(12);
+    }
+
+    public static GreetingSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2 GB: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            return new GreetingSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long lastId() {
+        return lastId;
+    }
+
+    /**
+     * Walks the record headers, decoding only the ids.
+     */
+    public void forEachRecord(RecordVisitor visitor) throws IOException {
+        int offset = HEADER_BYTES;
+        for (int i = 0; i < count; i++) {
+            if (offset + 4 > buffer.capacity()) {
+                throw new IOException("Truncated snapshot " + file + " at record " + i);
+            }
+            visitor.visit(readString(offset), offset);
+            offset += recordLength(offset);
+        }
+    }
+
+    /**
+     * Decodes the record at {@code offset}, as handed out by {@link #forEachRecord}.
+     */
+    public User decode(int offset) {
+        String id = readString(offset);
+        int body = bodyOffset(offset);
+        String name = readString(body);
+        String message = readString(body + 4 + Math.max(buffer.getInt(body), 0));
+        return new User(id, message, name, version(offset));
+    }
+
+    /**
+     * Decodes only the name of the record at {@code offset}.
+     */
+    public String decodeName(int offset) {
+        return readString(bodyOffset(offset));
+    }
+
+    private long version(int offset) {
+        return versionBytes == 0 ? 1 : buffer.getLong(offset + 4 + Math.max(buffer.getInt(offset), 0));
+    }
+
+    private int bodyOffset(int offset) {
+        return offset + 4 + Math.max(buffer.getInt(offset), 0) + versionBytes + 4;
+    }
+
+    // Bytes taken by the whole record at offset
+    int recordLength(int offset) {
+        int bodyLengthOffset = bodyOffset(offset) - 4;
+        return bodyLengthOffset + 4 + buffer.getInt(bodyLengthOffset) - offset;
+    }
+
+    private String readString(int offset) {
+        int length = buffer.getInt(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and moves it into place on
+     * {@link #commit()}, so readers never see a partial snapshot.
+     */
+    public static final class Writer implements Closeable {
+        private final Path file;
+        private final Path tempFile;
+        private final DataOutputStream out;
+        private final int expectedCount;
+        private int written;
+        private boolean committed;
+
+        public Writer(Path file, int count, long lastId) throws IOException {
+            this.file = file;
+            this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16));
+            this.expectedCount = count;
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeLong(lastId);
+        }
+
+        public void write(User greeting) throws IOException {
+            byte[] name = encode(greeting.getName());
+            byte[] message = encode(greeting.getMessage());
+            writeBytes(encode(greeting.getId()));
+            out.writeLong(greeting.getVersion());
+            out.writeInt(lengthOf(name) + lengthOf(message));
+            writeBytes(name);
+            writeBytes(message);
+            written++;
+        }
+
+        /**
+         * Copies a record that is still encoded in another snapshot without decoding it.
+         */
+        public void copy(GreetingSnapshot source, int offset) throws IOException {
+            if (source.versionBytes != 0) {
+                writeSlice(source.buffer, offset, source.recordLength(offset));
+            } else {
+                // Records of version 1 files gain a greeting version between id and body
+                int versionOffset = offset + 4 + Math.max(source.buffer.getInt(offset), 0);
+                writeSlice(source.buffer, offset, versionOffset - offset);
+                out.writeLong(1);
+                writeSlice(source.buffer, versionOffset, offset + source.recordLength(offset) - versionOffset);
+            }
+            written++;
+        }
+
+        public void commit() throws IOException {
+            if (written != expectedCount) {
+                throw new IOException("Snapshot expected " + expectedCount + " records but got " + written);
+            }
+            out.close();
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(tempFile);
+            }
+        }
+
+        private void writeSlice(ByteBuffer buffer, int offset, int length) throws IOException {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            out.write(bytes);
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            if (bytes == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        private static byte[] encode(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static int lengthOf(byte[] bytes) {
+            return 4 + (bytes == null ? 0 : bytes.length);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Restores the store from its snapshot before the application starts serving,
+ * then rewrites the snapshot periodically in the background and once more on shutdown.
+ */
+@Component
+@ConditionalOnProperty("greetings.snapshot.file")
+@ConditionalOnProperty(name = "greetings.store.backend", havingValue = "memory", matchIfMissing = true)
+// Listeners must be registered before the restore so they see the restored greetings
+@DependsOn({"greetingAnalytics", "greetingChangeLog"})
+public class GreetingSnapshotter {
+
+    private static final Logger log = LoggerFactory.getLogger(GreetingSnapshotter.class);
+
+    private final UserDaoImpl userDAO;
+    private final Path file;
+
+    public GreetingSnapshotter(UserDaoImpl userDAO, @Value("${greetings.snapshot.file}") Path file) {
+        this.userDAO = userDAO;
+        this.file = file;
+    }
+
+    @PostConstruct
+    public void restore() throws IOException {
+        if (!Files.exists(file)) {
+            log.info("No greeting snapshot at {}, starting empty", file);
+            return;
+        }
+        long start = System.nanoTime();
+        int restored = userDAO.restore(GreetingSnapshot.open(file));
+        log.info("Mapped {} greetings from {} in {} ms", restored, file, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Writes are serialized: the scheduled and the shutdown snapshot share one temporary
+     * file, and the shutdown snapshot must be the last one to land.
+     */
+    @Scheduled(initialDelayString = "${greetings.snapshot.interval:PT5M}", fixedDelayString = "${greetings.snapshot.interval:PT5M}")
+    public synchronized void snapshot() {
+        try {
+            long start = System.nanoTime();
+            int written = userDAO.writeSnapshot(file);
+            log.info("Wrote snapshot of {} greetings to {} in {} ms", written, file, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            log.error("Failed to write greeting snapshot to {}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo;
+
+/**
+ * A {@link UserDAO} backend that reports its changes to listeners. Exactly one is
+ * configured, chosen by {@code greetings.store.backend}; everything else uses it
+ * through the tracing {@link UserDAO}.
+ */
+public interface GreetingStore extends UserDAO {
+
+    /**
+     * Registers a listener for every later change. Listeners should be added before
+     * the store takes writes.
+     */
+    void addListener(GreetingListener listener);
+}
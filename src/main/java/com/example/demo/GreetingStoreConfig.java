@@ -0,0 +1,199 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.ToDoubleFunction;
+
+@Configuration
+@EnableScheduling
+public class GreetingStoreConfig {
+
+    /**
+     * Exactly one store backend is created, picked by {@code greetings.store.backend}:
+     * {@code memory} (the default) or {@code tiered}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "greetings.store.backend", havingValue = "memory", matchIfMissing = true)
+    public UserDaoImpl userDAO(@Value("${greetings.store.max-entries:0}") int maxEntries,
+                               @Value("${greetings.store.max-bytes:0B}") DataSize maxBytes,
+                               @Value("${greetings.store.ttl:0s}") Duration ttl,
+                               @Value("${greetings.store.deduplicate-values:true}") boolean deduplicateValues) {
+        return new UserDaoImpl(maxEntries, maxBytes.toBytes(), ttl, Clock.systemUTC(), deduplicateValues);
+    }
+
+    /**
+     * The tiered store keeps every greeting on disk itself, so the in-memory store's
+     * capacity, time to live and snapshot settings have nothing to act on. Combining
+     * them with it fails startup rather than silently ignoring them.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "greetings.store.backend", havingValue = "tiered")
+    public TieredUserDao tieredUserDao(@Value("${greetings.tiered.directory}") Path directory,
+                                       @Value("${greetings.tiered.flush-threshold:10000}") int flushThreshold,
+                                       @Value("${greetings.tiered.compaction-threshold:4}") int compactionThreshold,
+                                       @Value("${greetings.tiered.hot-cache-entries:10000}") int hotCacheEntries,
+                                       @Value("${greetings.store.max-entries:0}") int maxEntries,
+                                       @Value("${greetings.store.max-bytes:0B}") DataSize maxBytes,
+                                       @Value("${greetings.store.ttl:0s}") Duration ttl,
+                                       @Value("${greetings.snapshot.file:}") String snapshotFile) throws IOException {
+        if (maxEntries > 0 || maxBytes.toBytes() > 0 || !ttl.isZero() || !snapshotFile.isEmpty()) {
+            throw new IllegalStateException("greetings.store.backend=tiered cannot be combined with greetings.store.max-entries, "
+                    + "greetings.store.max-bytes, greetings.store.ttl or greetings.snapshot.file");
+        }
+        return new TieredUserDao(directory, flushThreshold, compactionThreshold, hotCacheEntries);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "greetings.store.backend", havingValue = "tiered")
+    public MeterBinder tieredStoreMetrics(TieredUserDao tieredUserDao) {
+        return registry -> {
+            Gauge.builder("greetings.tiered.memtable.size", tieredUserDao, TieredUserDao::getMemtableSize)
+                    .description("Greetings written since the last flush to disk")
+                    .register(registry);
+            Gauge.builder("greetings.tiered.segments", tieredUserDao, TieredUserDao::getSegmentCount)
+                    .description("On-disk greeting segments")
+                    .register(registry);
+            Gauge.builder("greetings.tiered.hot-cache.size", tieredUserDao, TieredUserDao::getHotCacheSize)
+                    .description("Cold greetings kept in memory after a read")
+                    .register(registry);
+            FunctionCounter.builder("greetings.tiered.flushes", tieredUserDao, TieredUserDao::getFlushCount)
+                    .description("Memory tier flushes to a new segment")
+                    .register(registry);
+            FunctionCounter.builder("greetings.tiered.compactions", tieredUserDao, TieredUserDao::getCompactionCount)
+                    .description("Segment compactions")
+                    .register(registry);
+            FunctionCounter.builder("greetings.tiered.segment.reads", tieredUserDao, TieredUserDao::getSegmentReadCount)
+                    .description("Segment lookups that had to read the file")
+                    .register(registry);
+            FunctionCounter.builder("greetings.tiered.bloom.skips", tieredUserDao, TieredUserDao::getBloomSkipCount)
+                    .description("Segment lookups skipped by the Bloom filter")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public GreetingAnalytics greetingAnalytics(GreetingStore store,
+                                               @Value("${greetings.analytics.top-capacity:1000}") int topCapacity) {
+        GreetingAnalytics analytics = new GreetingAnalytics(topCapacity);
+        store.addListener(analytics);
+        return analytics;
+    }
+
+    @Bean
+    public GreetingChangeLog greetingChangeLog(GreetingStore store,
+                                               @Value("${greetings.changes.max-tombstones:100000}") int maxTombstones) {
+        GreetingChangeLog changeLog = new GreetingChangeLog(maxTombstones);
+        store.addListener(changeLog);
+        return changeLog;
+    }
+
+    @Bean
+    public MeterBinder greetingChangeLogMetrics(GreetingChangeLog changeLog) {
+        return registry -> {
+            FunctionCounter.builder("greetings.changes.sequence", changeLog, GreetingChangeLog::getSequence)
+                    .description("Changes numbered since the store started")
+                    .register(registry);
+            Gauge.builder("greetings.changes.tombstones", changeLog, GreetingChangeLog::getTombstoneCount)
+                    .description("Deleted greetings still reported to change readers")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public IdempotencyCache<User> idempotencyCache(@Value("${greetings.idempotency.max-entries:10000}") int maxEntries,
+                                                   @Value("${greetings.idempotency.ttl:24h}") Duration ttl) {
+        return new IdempotencyCache<>(maxEntries, ttl);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public AsyncUserServiceImpl asyncUserService(UserService userService,
+                                                 @Value("${greetings.async.pool-size:16}") int poolSize,
+                                                 @Value("${greetings.async.queue-capacity:1000}") int queueCapacity) {
+        return new AsyncUserServiceImpl(userService, poolSize, queueCapacity);
+    }
+
+    @Bean
+    public MeterBinder asyncUserServiceMetrics(AsyncUserServiceImpl asyncUserService) {
+        return registry -> {
+            Gauge.builder("greetings.async.queued", asyncUserService, AsyncUserServiceImpl::getQueueSize)
+                    .description("Greeting service calls waiting for a pool thread")
+                    .register(registry);
+            Gauge.builder("greetings.async.active", asyncUserService, AsyncUserServiceImpl::getActiveCount)
+                    .description("Greeting service calls currently running")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public SingleFlight<String, byte[]> encodedReads() {
+        return new SingleFlight<>();
+    }
+
+    @Bean
+    public MeterBinder readCoalescingMetrics(SingleFlight<String, byte[]> encodedReads, UserServiceImpl userService) {
+        return registry -> {
+            bindCoalescing(registry, "http", encodedReads, SingleFlight::getExecutions, SingleFlight::getCoalesced);
+            bindCoalescing(registry, "service", userService, UserServiceImpl::getExecutedReadCount, UserServiceImpl::getCoalescedReadCount);
+        };
+    }
+
+    private static <T> void bindCoalescing(MeterRegistry registry, String layer, T reads,
+                                           ToDoubleFunction<T> executed, ToDoubleFunction<T> coalesced) {
+        FunctionCounter.builder("greetings.reads.executed", reads, executed)
+                .description("Reads that did the work themselves")
+                .tag("layer", layer)
+                .register(registry);
+        FunctionCounter.builder("greetings.reads.coalesced", reads, coalesced)
+                .description("Reads answered with the result of an identical read already in flight")
+                .tag("layer", layer)
+                .register(registry);
+        Gauge.builder("greetings.reads.coalescing-ratio", reads, value -> {
+                    double shared = coalesced.applyAsDouble(value);
+                    double total = shared + executed.applyAsDouble(value);
+                    return total == 0 ? 0 : shared / total;
+                })
+                .description("Share of reads since startup that were coalesced into another read")
+                .tag("layer", layer)
+                .register(registry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "greetings.store.backend", havingValue = "memory", matchIfMissing = true)
+    public MeterBinder greetingStoreMetrics(UserDaoImpl userDAO) {
+        return registry -> {
+            Gauge.builder("greetings.store.size", userDAO, UserDaoImpl::size)
+                    .description("Greetings currently held by the store")
+                    .register(registry);
+            Gauge.builder("greetings.store.bytes", userDAO, UserDaoImpl::getEstimatedBytes)
+                    .description("Estimated heap taken by the greetings, as counted against the byte capacity")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("greetings.store.evictions", userDAO, UserDaoImpl::getEvictionCount)
+                    .description("Greetings evicted because the store was at capacity")
+                    .register(registry);
+            FunctionCounter.builder("greetings.store.expirations", userDAO, UserDaoImpl::getExpirationCount)
+                    .description("Greetings removed because their time to live elapsed")
+                    .register(registry);
+            Gauge.builder("greetings.store.dedup.bytes-saved", userDAO, UserDaoImpl::getDeduplicatedBytes)
+                    .description("Estimated heap saved by sharing equal names and messages between greetings")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("greetings.store.dedup.distinct-values", userDAO, UserDaoImpl::getDistinctValueCount)
+                    .description("Distinct names and messages held by the store")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggerConfiguration;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Runs the request paths before the application reports ready, so the first real
+ * requests do not pay for interpreted code. Requests that leave the store alone
+ * are sent to the running server, through the servlet container, the dispatcher,
+ * JSON conversion and the validating controller proxy; creates, updates and deletes
+ * run against a scratch store so the live one is never changed. Readiness only
+ * switches to accepting traffic once every runner has finished, which makes this a
+ * gate on the readiness probe. The warm-up stops early when its time budget runs out,
+ * and the latency histograms are cleared afterwards so they only describe real traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "greetings.warm-up.enabled", havingValue = "true")
+public class GreetingWarmUp implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(GreetingWarmUp.class);
+    private static final int ROUND_SIZE = 100;
+    // Greetings kept in the scratch store, enough for list and multi-get to do real work
+    private static final int LIVE_GREETINGS = 64;
+    // Ids are numeric, so this passes the id validation but never names a greeting
+    private static final String MISSING_ID = "WarmUp";
+
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final LoggingSystem loggingSystem;
+    private final LatencyHistograms histograms;
+    private final int iterations;
+    private final Duration budget;
+    private volatile Result result;
+
+    /**
+     * Timing of a warm-up. The round figures are the mean time per iteration over the
+     * first and the last {@value #ROUND_SIZE} iterations; {@code completed} is false
+     * if the budget ran out first. {@code serverRequests} is 0 when no server was
+     * listening.
+     */
+    public record Result(int iterations, Duration elapsed, double firstRoundMicros, double lastRoundMicros, boolean completed,
+                         int serverRequests) {
+    }
+
+    public GreetingWarmUp(ObjectMapper objectMapper, Environment environment, LoggingSystem loggingSystem,
+                          LatencyHistograms histograms,
+                          @Value("${greetings.warm-up.iterations:5000}") int iterations,
+                          @Value("${greetings.warm-up.budget:30s}") Duration budget) {
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.loggingSystem = loggingSystem;
+        this.histograms = histograms;
+        this.iterations = iterations;
+        this.budget = budget;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // The service logs every call at info, which would flood the log while warming up
+        String logger = UserServiceImpl.class.getName();
+        LoggerConfiguration configuration = loggingSystem.getLoggerConfiguration(logger);
+        LogLevel configuredLevel = configuration != null ? configuration.getConfiguredLevel() : null;
+        loggingSystem.setLogLevel(logger, LogLevel.WARN);
+        try {
+            result = warmUp();
+            log.info("Warm-up {} {} iterations with {} server requests in {} ms, {} us per iteration in the first round and {} us in the last",
+                    result.completed() ? "ran" : "ran out of its " + budget.toMillis() + " ms budget after",
+                    result.iterations(), result.serverRequests(), result.elapsed().toMillis(),
+                    String.format("%.1f", result.firstRoundMicros()), String.format("%.1f", result.lastRoundMicros()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Warm-up interrupted, serving without it");
+        } catch (Exception e) {
+            // A failed warm-up only costs latency, the application can still serve
+            log.warn("Warm-up failed, serving without it", e);
+        } finally {
+            loggingSystem.setLogLevel(logger, configuredLevel);
+            histograms.reset();
+        }
+    }
+
+    /**
+     * Outcome of the last run, or null if it has not finished.
+     */
+    public Result getResult() {
+        return result;
+    }
+
+    Result warmUp() throws IOException, InterruptedException {
+        UserDaoImpl scratch = new UserDaoImpl();
+        HelloController controller = new HelloController(scratch, new IdempotencyCache<>(LIVE_GREETINGS, Duration.ofMinutes(1)),
+                new SingleFlight<>(), objectMapper);
+        BulkGreetingController bulkController = new BulkGreetingController(new NdjsonBulkLoader(scratch, objectMapper), scratch);
+        UserService service = new UserServiceImpl(scratch);
+        Deque<String> live = new ArrayDeque<>();
+        URI server = serverUri();
+        HttpClient client = server == null ? null : HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+        int serverRequests = 0;
+
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        long roundStart = start;
+        double firstRound = 0;
+        double lastRound = 0;
+        int done = 0;
+        while (done < iterations && System.nanoTime() - deadline < 0) {
+            exercise(done, controller, bulkController, service, live);
+            if (client != null) {
+                serverRequests += exerciseServer(done, client, server);
+            }
+            done++;
+            if (done % ROUND_SIZE == 0 || done == iterations) {
+                long now = System.nanoTime();
+                int roundIterations = done % ROUND_SIZE == 0 ? ROUND_SIZE : done % ROUND_SIZE;
+                lastRound = (now - roundStart) / 1_000.0 / roundIterations;
+                if (done <= ROUND_SIZE) {
+                    firstRound = lastRound;
+                }
+                roundStart = now;
+            }
+        }
+        return new Result(done, Duration.ofNanos(System.nanoTime() - start), firstRound, lastRound, done == iterations,
+                serverRequests);
+    }
+
+    // Base address of the running server, or null without one, as in tests on a mock environment
+    private URI serverUri() {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (port == null || environment.getProperty("server.ssl.enabled", Boolean.class, false)) {
+            return null;
+        }
+        return URI.create("http://localhost:" + port + environment.getProperty("server.servlet.context-path", "") + "/");
+    }
+
+    private void exercise(int i, HelloController controller, BulkGreetingController bulkController,
+                          UserService service, Deque<String> live) throws IOException {
+        byte[] body = ("{\"name\":\"Warm Up " + i + "\",\"message\":\"Hello " + i + "\"}").getBytes(StandardCharsets.UTF_8);
+        UserRequest request = objectMapper.readValue(body, UserRequest.class);
+
+        User created = controller.createGreeting(request);
+        live.addLast(created.getId());
+        objectMapper.writeValueAsBytes(controller.updateGreeting(created.getId(), request).getBody());
+        objectMapper.writeValueAsBytes(service.getGreetingById(created.getId()).orElseThrow());
+        objectMapper.writeValueAsBytes(controller.helloWithName(request.getName()));
+        objectMapper.writeValueAsBytes(bulkController.getGreetings(List.of(live.getFirst(), created.getId(), MISSING_ID)));
+        if (i % 8 == 0) {
+            controller.getAllGreetingsEncoded();
+            objectMapper.writeValueAsBytes(service.getAllGreetings());
+        }
+        if (live.size() > LIVE_GREETINGS) {
+            String oldest = live.removeFirst();
+            if (i % 2 == 0) {
+                controller.deleteGreeting(oldest);
+            } else {
+                service.deleteGreeting(oldest);
+            }
+        }
+    }
+
+    /**
+     * Sends requests that take the same paths as writes without changing the store:
+     * the update and the lookup use an id no greeting can have, and the create is
+     * rejected for its missing name. Returns the number of requests sent.
+     */
+    private int exerciseServer(int i, HttpClient client, URI server) throws IOException, InterruptedException {
+        String body = "{\"name\":\"Warm Up " + i + "\",\"message\":\"Hello " + i + "\"}";
+        send(client, HttpRequest.newBuilder(server.resolve("hello/WarmUp" + i)).GET());
+        send(client, HttpRequest.newBuilder(server.resolve("hello/" + MISSING_ID))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body)));
+        if (i % 8 != 0) {
+            return 2;
+        }
+        send(client, HttpRequest.newBuilder(server.resolve("hello?ids=" + MISSING_ID)).GET());
+        send(client, HttpRequest.newBuilder(server.resolve("hello"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"Hello " + i + "\"}")));
+        return 4;
+    }
+
+    private static void send(HttpClient client, HttpRequest.Builder request) throws IOException, InterruptedException {
+        client.send(request.timeout(Duration.ofSeconds(5)).build(), HttpResponse.BodyHandlers.discarding());
+    }
+}
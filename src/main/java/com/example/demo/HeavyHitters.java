@@ -0,0 +1,165 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving sketch of the most frequent keys in a stream, using at most
+ * {@code capacity} counters. Counters live in buckets of equal count kept in
+ * ascending order, so an increment is O(1) and the top k are read in O(k).
+ * A reported count overestimates the true count by at most its error.
+ * Not thread safe.
+ */
+public class HeavyHitters {
+
+    public record Estimate(String key, long count, long error) {
+    }
+
+    private static final class Counter {
+        private String key;
+        private long error;
+        private Bucket bucket;
+        private Counter prev;
+        private Counter next;
+    }
+
+    private static final class Bucket {
+        private final long count;
+        private Counter head;
+        private Bucket lower;
+        private Bucket higher;
+
+        private Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private Bucket min;
+    private Bucket max;
+
+    public HeavyHitters(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public void offer(String key) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter();
+                counter.key = key;
+                counters.put(key, counter);
+                attach(counter, onesBucket());
+                return;
+            }
+            // Take over the counter with the smallest count; its count becomes our error bound
+            counter = min.head;
+            counters.remove(counter.key);
+            counter.key = key;
+            counter.error = min.count;
+            counters.put(key, counter);
+        }
+        increment(counter);
+    }
+
+    /**
+     * Returns up to {@code k} keys with the highest estimated counts, highest first.
+     */
+    public List<Estimate> top(int k) {
+        List<Estimate> result = new ArrayList<>(Math.min(k, counters.size()));
+        for (Bucket bucket = max; bucket != null && result.size() < k; bucket = bucket.lower) {
+            for (Counter counter = bucket.head; counter != null && result.size() < k; counter = counter.next) {
+                result.add(new Estimate(counter.key, bucket.count, counter.error));
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    private void increment(Counter counter) {
+        Bucket current = counter.bucket;
+        Bucket target = current.higher != null && current.higher.count == current.count + 1
+                ? current.higher
+                : insertAbove(current, new Bucket(current.count + 1));
+        detach(counter);
+        attach(counter, target);
+    }
+
+    // New keys start at a count of one, which is always the lowest bucket
+    private Bucket onesBucket() {
+        if (min != null && min.count == 1) {
+            return min;
+        }
+        Bucket bucket = new Bucket(1);
+        bucket.higher = min;
+        if (min != null) {
+            min.lower = bucket;
+        } else {
+            max = bucket;
+        }
+        min = bucket;
+        return bucket;
+    }
+
+    private Bucket insertAbove(Bucket below, Bucket bucket) {
+        bucket.lower = below;
+        bucket.higher = below.higher;
+        if (below.higher != null) {
+            below.higher.lower = bucket;
+        } else {
+            max = bucket;
+        }
+        below.higher = bucket;
+        return bucket;
+    }
+
+    private void attach(Counter counter, Bucket bucket) {
+        counter.bucket = bucket;
+        counter.prev = null;
+        counter.next = bucket.head;
+        if (bucket.head != null) {
+            bucket.head.prev = counter;
+        }
+        bucket.head = counter;
+    }
+
+    private void detach(Counter counter) {
+        Bucket bucket = counter.bucket;
+        if (counter.prev != null) {
+            counter.prev.next = counter.next;
+        } else {
+            bucket.head = counter.next;
+        }
+        if (counter.next != null) {
+            counter.next.prev = counter.prev;
+        }
+        counter.prev = null;
+        counter.next = null;
+        counter.bucket = null;
+        if (bucket.head == null) {
+            removeBucket(bucket);
+        }
+    }
+
+    private void removeBucket(Bucket bucket) {
+        if (bucket.lower != null) {
+            bucket.lower.higher = bucket.higher;
+        } else {
+            min = bucket.higher;
+        }
+        if (bucket.higher != null) {
+            bucket.higher.lower = bucket.lower;
+        } else {
+            max = bucket.lower;
+        }
+    }
+}
@@ -1,27 +1,55 @@
 package com.example.demo;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.*;
 
 @RestController
 @Validated
 public class HelloController {
 
-    private final List<User> greetings = Collections.synchronizedList(new ArrayList<>());
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
 
-    private Optional<User> findGreetingById(String id) {
-        return greetings.stream().filter(g -> g.getId() != null && g.getId().equals(id)).findFirst();
+    private final UserDAO userDAO;
+    private final IdempotencyCache<User> idempotencyCache;
+    private final SingleFlight<String, byte[]> encodedReads;
+    private final ObjectMapper objectMapper;
+
+    public HelloController() {
+        this(new UserDaoImpl());
+    }
+
+    public HelloController(UserDAO userDAO) {
+        this(userDAO, new IdempotencyCache<>(10_000, Duration.ofHours(24)));
+    }
+
+    public HelloController(UserDAO userDAO, IdempotencyCache<User> idempotencyCache) {
+        this(userDAO, idempotencyCache, new SingleFlight<>(), new ObjectMapper());
+    }
+
+    @Autowired
+    public HelloController(UserDAO userDAO, IdempotencyCache<User> idempotencyCache,
+                           SingleFlight<String, byte[]> encodedReads, ObjectMapper objectMapper) {
+        this.userDAO = userDAO;
+        this.idempotencyCache = idempotencyCache;
+        this.encodedReads = encodedReads;
+        this.objectMapper = objectMapper;
     }
 
     private Optional<User> findGreetingByName(String name) {
-        return greetings.stream().filter(g -> g.getName() != null && g.getName().equals(name)).findFirst();
+        return userDAO.findAll().stream().filter(g -> g.getName() != null && g.getName().equals(name)).findFirst();
     }
 
     @GetMapping("/hello")
@@ -37,34 +65,73 @@ public class HelloController {
         return String.format("Hello %s", name);
     }
 
-    @GetMapping("/hello/all")
-    public List<User> getAllGreetings() {
-        return new ArrayList<>(greetings);
+    List<User> getAllGreetings() {
+        return userDAO.findAll();
+    }
+
+    /**
+     * Serves {@link #getAllGreetings()} already encoded. Concurrent requests share
+     * one read of the store and one encoding of the result.
+     */
+    @GetMapping(value = "/hello/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getAllGreetingsEncoded() {
+        byte[] body = encodedReads.execute("/hello/all", () -> {
+            try {
+                return objectMapper.writeValueAsBytes(getAllGreetings());
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    public User createGreeting(UserRequest request) {
+        return createGreeting(request, null);
     }
 
     @PostMapping("/hello")
-    public User createGreeting(@Valid @RequestBody UserRequest request) {
+    public User createGreeting(@Valid @RequestBody UserRequest request,
+                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         // Validate input
         if (request.getName() == null || request.getMessage() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Name and message are required");
         }
 
-        // Format the message to include both name and message content
-        User greeting = new User(String.valueOf(greetings.size() + 1), request.getMessage(), request.getName());
-        greetings.add(greeting);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return userDAO.save(new User(null, request.getMessage(), request.getName()));
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key is too long");
+        }
+
+        // Retries with the same key get the original greeting back instead of creating a duplicate
+        User greeting = idempotencyCache.execute(idempotencyKey,
+                () -> userDAO.save(new User(null, request.getMessage(), request.getName())));
+        if (!Objects.equals(greeting.getName(), request.getName()) || !Objects.equals(greeting.getMessage(), request.getMessage())) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used for a different request");
+        }
         return greeting;
     }
 
+    public ResponseEntity<User> updateGreeting(String id, UserRequest request) {
+        return updateGreeting(id, request, null);
+    }
+
+    /**
+     * Updates a greeting. With {@code If-Match} the update only applies if the greeting
+     * is still at one of the given versions, otherwise the answer is 412 with the
+     * current version as ETag.
+     */
     @PutMapping("/hello/{id}")
     public ResponseEntity<User> updateGreeting(
             @PathVariable
             @Pattern(regexp = "[a-zA-Z0-9\\s]+", message = "ID can only contain alphanumeric characters")
             String id,
-            @Valid @RequestBody UserRequest request) {
+            @Valid @RequestBody UserRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
 
-        Optional<User> greetingOpt = findGreetingById(id);
-
-        if (greetingOpt.isEmpty()) {
+        Optional<User> current = userDAO.findById(id);
+        if (current.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
@@ -76,12 +143,32 @@ public class HelloController {
         // Format the message to include both name and message content
         String formattedMessage = String.format("Hello %s! Your message: %s", request.getName(), request.getMessage());
 
-        int index = greetings.indexOf(greetingOpt.get());
         User updatedGreeting = new User(id, formattedMessage,request.getName()); // Use the formatted message
 
-        greetings.set(index, updatedGreeting);
-        return ResponseEntity.ok(updatedGreeting);
+        Optional<User> result;
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            result = userDAO.update(id, updatedGreeting);
+        } else {
+            long version = current.get().getVersion();
+            if (!ETags.matches(ifMatch, version)) {
+                return preconditionFailed(version);
+            }
+            try {
+                result = userDAO.update(id, updatedGreeting, version);
+            } catch (VersionConflictException e) {
+                return preconditionFailed(e.getCurrentVersion());
+            }
+        }
+
+        return result
+                .map(greeting -> ResponseEntity.ok().eTag(ETags.of(greeting.getVersion())).body(greeting))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static ResponseEntity<User> preconditionFailed(long currentVersion) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ETags.of(currentVersion)).build();
     }
+
     // Additional PUT endpoint for Cucumber tests with name
     @PutMapping("/hello/name/{name}")
     public ResponseEntity<User> updateGreetingByName(@PathVariable String name, @RequestBody UserRequest request) {
@@ -89,30 +176,25 @@ public class HelloController {
 
         if (greetingOpt.isEmpty()) {
             // If not found, create a new greeting with this name
-            User newGreeting = new User(String.valueOf(greetings.size() + 1), request.getMessage(), request.getName());
-            greetings.add(newGreeting);
+            User newGreeting = userDAO.save(new User(null, request.getMessage(), request.getName()));
             return ResponseEntity.ok(newGreeting);
         }
 
         // If found, update it
         User existingGreeting = greetingOpt.get();
-        int index = greetings.indexOf(existingGreeting);
-
         User updatedGreeting = new User(existingGreeting.getId(), request.getMessage(), request.getName());
 
-        greetings.set(index, updatedGreeting);
-        return ResponseEntity.ok(updatedGreeting);
+        return userDAO.update(existingGreeting.getId(), updatedGreeting)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/hello/{id}")
     public ResponseEntity<Void> deleteGreeting(@PathVariable String id) {
-        Optional<User> greetingOpt = findGreetingById(id);
-
-        if (greetingOpt.isEmpty()) {
+        if (!userDAO.delete(id)) {
             return ResponseEntity.notFound().build();
         }
 
-        greetings.remove(greetingOpt.get());
         return ResponseEntity.noContent().build();
     }
 
@@ -126,7 +208,7 @@ public class HelloController {
             return ResponseEntity.ok().build();
         }
 
-        greetings.remove(greetingOpt.get());
+        userDAO.delete(greetingOpt.get().getId());
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of a request per idempotency key for a limited time.
+ * A duplicate arriving while the first request is still running waits for
+ * that result instead of executing again. Failed executions are forgotten,
+ * so the client can retry them. Entries still executing are never evicted, so
+ * the cache can briefly exceed its capacity while many keys are in flight.
+ */
+public class IdempotencyCache<V> {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyCache.class);
+
+    // Guarded by this. Every entry shares the same ttl, so insertion order is also expiry order
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>();
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private record Entry<V>(CompletableFuture<V> result, long expiresAt) {
+    }
+
+    public IdempotencyCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, Clock.systemUTC());
+    }
+
+    public IdempotencyCache(int maxEntries, Duration ttl, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Idempotency cache needs room for at least one entry");
+        }
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the result stored for {@code key}, running {@code action} only if no
+     * live entry exists. Concurrent callers with the same key share one execution.
+     */
+    public V execute(String key, Supplier<V> action) {
+        Entry<V> existing;
+        Entry<V> entry = null;
+        synchronized (this) {
+            long now = clock.millis();
+            existing = entries.get(key);
+            // An expired entry still executing is joined rather than run a second time
+            if (existing == null || (existing.expiresAt() <= now && existing.result().isDone())) {
+                existing = null;
+                entry = new Entry<>(new CompletableFuture<>(), now + ttl.toMillis());
+                entries.remove(key);
+                entries.put(key, entry);
+                evict(now);
+            }
+        }
+        if (existing != null) {
+            log.debug("Replaying result for idempotency key: {}", key);
+            return await(existing.result());
+        }
+
+        try {
+            V result = action.get();
+            entry.result().complete(result);
+            return result;
+        } catch (Throwable e) {
+            synchronized (this) {
+                entries.remove(key, entry);
+            }
+            // Errors too, or callers waiting on this key would never return
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Drops expired entries and, above capacity, the oldest finished ones
+    private void evict(long now) {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry<V> eldest = iterator.next();
+            boolean expired = eldest.expiresAt() <= now;
+            if (!expired && entries.size() <= maxEntries) {
+                return;
+            }
+            if (eldest.result().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private V await(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reference counted pool of string values, so greetings sharing a name or message
+ * share one {@code String} instance. Every {@link #acquire} must be matched by a
+ * {@link #release} once the holder drops the value; a value leaves the pool with
+ * its last reference.
+ */
+public class InterningPool {
+
+    // Object header, hash and coder fields of a String plus the header of its byte array
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final Map<String, Pooled> values = new ConcurrentHashMap<>();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    private static final class Pooled {
+        private final String value;
+        private final int bytes;
+        private int references;
+
+        private Pooled(String value) {
+            this.value = value;
+            this.bytes = sizeOf(value);
+        }
+    }
+
+    /**
+     * Returns the pooled instance equal to {@code value}, adding it if it is new.
+     */
+    public String acquire(String value) {
+        if (value == null) {
+            return null;
+        }
+        Pooled pooled = values.compute(value, (key, existing) -> {
+            Pooled entry = existing != null ? existing : new Pooled(key);
+            if (entry.references++ > 0) {
+                bytesSaved.addAndGet(entry.bytes);
+            }
+            return entry;
+        });
+        return pooled.value;
+    }
+
+    public void release(String value) {
+        if (value == null) {
+            return;
+        }
+        values.computeIfPresent(value, (key, entry) -> {
+            if (--entry.references > 0) {
+                bytesSaved.addAndGet(-entry.bytes);
+                return entry;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Estimated heap not spent on duplicate copies of the values currently held.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public int getDistinctValues() {
+        return values.size();
+    }
+
+    // Strings are stored with one byte per char unless a char does not fit in Latin-1
+    private static int sizeOf(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                return STRING_OVERHEAD_BYTES + value.length() * 2;
+            }
+        }
+        return STRING_OVERHEAD_BYTES + value.length();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Exposes the sampled per-layer latency histograms at {@code /actuator/latency}.
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    private final LatencyHistograms histograms;
+
+    public LatencyEndpoint(LatencyHistograms histograms) {
+        this.histograms = histograms;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, LatencyHistograms.Summary>> latency() {
+        return histograms.summaries();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        histograms.reset();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per route and layer latency histograms, recorded in microseconds.
+ */
+@Component
+public class LatencyHistograms {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final RequestTrace.Layer[] LAYERS = RequestTrace.Layer.values();
+
+    // pattern -> method -> one histogram per layer
+    private final Map<String, Map<String, Histogram[]>> routes = new ConcurrentHashMap<>();
+
+    public record Summary(long count, double meanMicros, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+    }
+
+    void record(String method, String pattern, RequestTrace trace) {
+        Histogram[] histograms = histograms(method, pattern);
+        for (RequestTrace.Layer layer : LAYERS) {
+            if (layer == RequestTrace.Layer.TOTAL || trace.reachedHandler()) {
+                long micros = TimeUnit.NANOSECONDS.toMicros(trace.nanos(layer));
+                histograms[layer.ordinal()].recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+            }
+        }
+    }
+
+    /**
+     * Summaries keyed by "METHOD pattern" and then layer name.
+     */
+    public Map<String, Map<String, Summary>> summaries() {
+        Map<String, Map<String, Summary>> result = new TreeMap<>();
+        routes.forEach((pattern, methods) -> methods.forEach((method, histograms) -> {
+            Map<String, Summary> layers = new LinkedHashMap<>();
+            for (RequestTrace.Layer layer : LAYERS) {
+                Histogram histogram = histograms[layer.ordinal()].copy();
+                layers.put(layer.name().toLowerCase(), new Summary(
+                        histogram.getTotalCount(),
+                        histogram.getTotalCount() == 0 ? 0 : histogram.getMean(),
+                        histogram.getValueAtPercentile(50),
+                        histogram.getValueAtPercentile(90),
+                        histogram.getValueAtPercentile(99),
+                        histogram.getMaxValue()));
+            }
+            result.put(method + " " + pattern, layers);
+        }));
+        return result;
+    }
+
+    public void reset() {
+        routes.clear();
+    }
+
+    private Histogram[] histograms(String method, String pattern) {
+        Map<String, Histogram[]> methods = routes.get(pattern);
+        if (methods == null) {
+            methods = routes.computeIfAbsent(pattern, p -> new ConcurrentHashMap<>());
+        }
+        Histogram[] histograms = methods.get(method);
+        if (histograms == null) {
+            histograms = methods.computeIfAbsent(method, m -> {
+                Histogram[] created = new Histogram[LAYERS.length];
+                for (int i = 0; i < created.length; i++) {
+                    created[i] = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 2);
+                }
+                return created;
+            });
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Moves greetings in and out of the store as newline delimited JSON, one
+ * greeting per line. Imports parse each batch of lines in parallel and store it
+ * before reading the next.
+ *
+ * <p>Imported greetings get new ids from the store, in input order, and start at
+ * version 1; ids and versions in the input are ignored. An export imported into
+ * another store therefore carries the same greetings under different ids.
+ */
+@Component
+public class NdjsonBulkLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(NdjsonBulkLoader.class);
+
+    static final int BATCH_SIZE = 1_000;
+    private static final long WINDOW_BYTES = 64L << 20;
+    // Marks a blank line, which is skipped rather than rejected
+    private static final User BLANK = new User();
+
+    private final UserDAO userDAO;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    public NdjsonBulkLoader(UserDAO userDAO, ObjectMapper objectMapper) {
+        this.userDAO = userDAO;
+        this.reader = objectMapper.readerFor(User.class);
+        this.writer = objectMapper.writerFor(User.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+    }
+
+    public record ImportResult(long imported, long rejected) {
+        ImportResult plus(ImportResult other) {
+            return new ImportResult(imported + other.imported, rejected + other.rejected);
+        }
+    }
+
+    /**
+     * Imports from a stream, reading {@link #BATCH_SIZE} lines at a time and parsing each batch in parallel.
+     */
+    public ImportResult importStream(InputStream in) throws IOException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        ImportResult result = new ImportResult(0, 0);
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            batch.add(line);
+            if (batch.size() == BATCH_SIZE) {
+                result = result.plus(store(batch.parallelStream().map(this::parseLine).toList()));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            result = result.plus(store(batch.parallelStream().map(this::parseLine).toList()));
+        }
+        log.info("Imported {} greetings from stream, rejected {} lines", result.imported(), result.rejected());
+        return result;
+    }
+
+    /**
+     * Imports a file by memory mapping it one window at a time. Lines are collected
+     * {@link #BATCH_SIZE} at a time as positions in the window, then parsed in parallel
+     * and stored before the next batch is read, so memory use stays constant regardless
+     * of file size and greetings are stored in file order.
+     */
+    public ImportResult importFile(Path file) throws IOException {
+        ImportResult result = new ImportResult(0, 0);
+        int[] starts = new int[BATCH_SIZE];
+        int[] ends = new int[BATCH_SIZE];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(WINDOW_BYTES, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    end = lastNewline(window, end) + 1;
+                    if (end <= 0) {
+                        throw new IOException("Line at offset " + position + " is longer than " + WINDOW_BYTES + " bytes");
+                    }
+                }
+
+                int lines = 0;
+                int start = 0;
+                while (start < end) {
+                    int lineEnd = nextNewline(window, start, end);
+                    starts[lines] = start;
+                    ends[lines] = lineEnd;
+                    if (++lines == BATCH_SIZE) {
+                        result = result.plus(store(window, starts, ends, lines));
+                        lines = 0;
+                    }
+                    start = lineEnd + 1;
+                }
+                if (lines > 0) {
+                    result = result.plus(store(window, starts, ends, lines));
+                }
+                position += end;
+            }
+        }
+        log.info("Imported {} greetings from {}, rejected {} lines", result.imported(), file, result.rejected());
+        return result;
+    }
+
+    /**
+     * Streams every greeting from the store to {@code out}. The store hands the
+     * greetings over outside its locks, so a slow reader does not block writers.
+     */
+    public long export(OutputStream out) throws IOException {
+        long[] exported = {0};
+        try (JsonGenerator generator = writer.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            userDAO.forEach(greeting -> {
+                try {
+                    writer.writeValue(generator, greeting);
+                    generator.writeRaw('\n');
+                    exported[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return exported[0];
+    }
+
+    private ImportResult store(ByteBuffer window, int[] starts, int[] ends, int lines) {
+        return store(IntStream.range(0, lines).parallel()
+                .mapToObj(line -> parseLine(window, starts[line], ends[line]))
+                .toList());
+    }
+
+    private ImportResult store(List<User> parsed) {
+        List<User> valid = new ArrayList<>(parsed.size());
+        long rejected = 0;
+        for (User greeting : parsed) {
+            if (greeting == null) {
+                rejected++;
+            } else if (greeting != BLANK) {
+                valid.add(greeting);
+            }
+        }
+        if (!valid.isEmpty()) {
+            userDAO.saveAll(valid);
+        }
+        return new ImportResult(valid.size(), rejected);
+    }
+
+    private User parseLine(String line) {
+        if (line.isBlank()) {
+            return BLANK;
+        }
+        try {
+            return valid(reader.readValue(line));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private User parseLine(ByteBuffer window, int start, int end) {
+        if (isBlank(window, start, end)) {
+            return BLANK;
+        }
+        // A slice per line, as reading moves the position of the buffer
+        try (InputStream line = new ByteBufferBackedInputStream(window.slice(start, end - start))) {
+            return valid(reader.readValue(line));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static User valid(User greeting) {
+        // Same rule as POST /hello: both name and message are required
+        if (greeting == null || greeting.getName() == null || greeting.getMessage() == null) {
+            return null;
+        }
+        return greeting;
+    }
+
+    private static int lastNewline(ByteBuffer buffer, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Position of the newline ending the line that starts at from, or end for an unterminated last line
+    private static int nextNewline(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(buffer.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
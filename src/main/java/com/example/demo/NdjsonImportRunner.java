@@ -0,0 +1,37 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Seeds the store from an NDJSON file at startup, e.g.
+ * {@code --greetings.import.file=/data/greetings.ndjson}.
+ */
+@Component
+@ConditionalOnProperty("greetings.import.file")
+public class NdjsonImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(NdjsonImportRunner.class);
+
+    private final NdjsonBulkLoader bulkLoader;
+    private final Path file;
+
+    public NdjsonImportRunner(NdjsonBulkLoader bulkLoader, @Value("${greetings.import.file}") Path file) {
+        this.bulkLoader = bulkLoader;
+        this.file = file;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+        NdjsonBulkLoader.ImportResult result = bulkLoader.importFile(file);
+        log.info("Loaded {} greetings from {} in {} ms", result.imported(), file, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo;
+
+/**
+ * Layer timings of the request being handled on the current thread. One instance
+ * is kept per thread and reused, so tracing a request allocates nothing.
+ */
+public final class RequestTrace {
+
+    public enum Layer {
+        // Body binding plus @Valid/@Pattern validation, up to the controller method
+        VALIDATION,
+        // Controller and service logic, excluding time spent in the store
+        HANDLER,
+        // Calls into UserDAO, including waiting for the store lock
+        STORE,
+        // Return value handling and JSON encoding
+        ENCODING,
+        TOTAL
+    }
+
+    static final long NOT_TRACED = Long.MIN_VALUE;
+
+    private static final ThreadLocal<RequestTrace> TRACES = ThreadLocal.withInitial(RequestTrace::new);
+
+    private boolean active;
+    private long startNanos;
+    private long handlerStartNanos;
+    private long handlerEndNanos;
+    private long endNanos;
+    private long storeNanos;
+
+    private RequestTrace() {
+    }
+
+    static RequestTrace begin() {
+        RequestTrace trace = TRACES.get();
+        trace.active = true;
+        trace.startNanos = System.nanoTime();
+        trace.handlerStartNanos = 0;
+        trace.handlerEndNanos = 0;
+        trace.endNanos = 0;
+        trace.storeNanos = 0;
+        return trace;
+    }
+
+    /**
+     * Returns the trace of the current request, or null when it is not sampled.
+     */
+    static RequestTrace current() {
+        RequestTrace trace = TRACES.get();
+        return trace.active ? trace : null;
+    }
+
+    static long storeStarted() {
+        return current() == null ? NOT_TRACED : System.nanoTime();
+    }
+
+    static void storeFinished(long startNanos) {
+        if (startNanos != NOT_TRACED) {
+            RequestTrace trace = current();
+            if (trace != null) {
+                trace.storeNanos += System.nanoTime() - startNanos;
+            }
+        }
+    }
+
+    void handlerStarted() {
+        handlerStartNanos = System.nanoTime();
+    }
+
+    void handlerFinished() {
+        handlerEndNanos = System.nanoTime();
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+        active = false;
+    }
+
+    void discard() {
+        active = false;
+    }
+
+    boolean reachedHandler() {
+        return handlerStartNanos != 0 && handlerEndNanos != 0;
+    }
+
+    long nanos(Layer layer) {
+        return switch (layer) {
+            case VALIDATION -> handlerStartNanos - startNanos;
+            case HANDLER -> Math.max(handlerEndNanos - handlerStartNanos - storeNanos, 0);
+            case STORE -> storeNanos;
+            case ENCODING -> endNanos - handlerEndNanos;
+            case TOTAL -> endNanos - startNanos;
+        };
+    }
+}
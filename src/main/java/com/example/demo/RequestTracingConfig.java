@@ -0,0 +1,79 @@
+package com.example.demo;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class RequestTracingConfig implements WebMvcConfigurer {
+
+    private final RequestTracingInterceptor tracingInterceptor;
+
+    public RequestTracingConfig(LatencyHistograms histograms,
+                                @Value("${greetings.tracing.sample-rate:0.1}") double sampleRate,
+                                @Value("${greetings.tracing.slow-threshold:500ms}") Duration slowThreshold) {
+        this.tracingInterceptor = new RequestTracingInterceptor(histograms, sampleRate, slowThreshold);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(tracingInterceptor);
+    }
+
+    @Bean
+    @Primary
+    public UserDAO tracingUserDao(GreetingStore store) {
+        return new TracingUserDao(store);
+    }
+
+    /**
+     * Marks where controller methods start and end. Deliberately not {@link org.springframework.core.Ordered},
+     * so it runs after the method validation post processor and its advice sits inside the validation advice.
+     */
+    @Bean
+    public static BeanPostProcessor handlerTimingPostProcessor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor((MethodInterceptor) invocation -> {
+            RequestTrace trace = RequestTrace.current();
+            if (trace == null) {
+                return invocation.proceed();
+            }
+            trace.handlerStarted();
+            try {
+                return invocation.proceed();
+            } finally {
+                trace.handlerFinished();
+            }
+        });
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                Class<?> type = AopUtils.getTargetClass(bean);
+                if (!AnnotatedElementUtils.hasAnnotation(type, RestController.class)) {
+                    return bean;
+                }
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvisor(advisor);
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvisor(advisor);
+                return proxyFactory.getProxy(type.getClassLoader());
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a {@link RequestTrace} for a sample of requests and records it into the
+ * latency histograms once the response has been written. Requests that go async
+ * are not traced, their work happens on other threads.
+ */
+public class RequestTracingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTracingInterceptor.class);
+
+    private final LatencyHistograms histograms;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public RequestTracingInterceptor(LatencyHistograms histograms, double sampleRate, Duration slowThreshold) {
+        this.histograms = histograms;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            RequestTrace.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.discard();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace == null) {
+            return;
+        }
+        trace.finish();
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return;
+        }
+        histograms.record(request.getMethod(), pattern.toString(), trace);
+
+        long total = trace.nanos(RequestTrace.Layer.TOTAL);
+        if (total >= slowThresholdNanos) {
+            log.warn("Slow request {} {} took {} ms (validation={} us, handler={} us, store={} us, encoding={} us)",
+                    request.getMethod(), pattern, TimeUnit.NANOSECONDS.toMillis(total),
+                    micros(trace, RequestTrace.Layer.VALIDATION), micros(trace, RequestTrace.Layer.HANDLER),
+                    micros(trace, RequestTrace.Layer.STORE), micros(trace, RequestTrace.Layer.ENCODING));
+        }
+    }
+
+    private static long micros(RequestTrace trace, RequestTrace.Layer layer) {
+        return trace.reachedHandler() || layer == RequestTrace.Layer.TOTAL
+                ? TimeUnit.NANOSECONDS.toMicros(trace.nanos(layer))
+                : -1;
+    }
+}
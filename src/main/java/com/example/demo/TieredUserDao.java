@@ -0,0 +1,809 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Greeting store that keeps recent writes in memory and moves them to immutable
+ * sorted {@link GreetingSegment} files once the memory tier fills up. Reads check
+ * the memory tier, then a cache of recently read cold greetings, then the segments
+ * from newest to oldest; each segment's Bloom filter lets most misses skip the file.
+ * A background compactor merges the segments once there are too many of them.
+ *
+ * <p>Writes to one greeting are serialized by a lock stripe, reads take no lock.
+ * Greetings are handed out as copies, so callers cannot change what the memory tier
+ * or the read cache hold. Listeners are told about each change while its stripe is
+ * held. Greetings still in the memory tier are lost on a crash; {@link #close()}
+ * flushes them.
+ *
+ * <p>Compaction writes its outputs under a separate suffix and only moves them into
+ * place after a marker file records that all of them are on disk. Opening the store
+ * finishes a compaction that got as far as its marker and discards one that did not,
+ * whose inputs are then still complete.
+ */
+public class TieredUserDao implements GreetingStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredUserDao.class);
+    private static final int LOCK_STRIPES = 64;
+    // Compaction starts a new output file past this size so every segment stays mappable
+    private static final long MAX_SEGMENT_BYTES = 256L << 20;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+    private static final String COMPACTION_MARKER = "compaction.done";
+    // Left behind by a segment writer that did not get to commit
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final int flushThreshold;
+    private final int compactionThreshold;
+    private final int hotCacheEntries;
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicLong lastGeneration = new AtomicLong();
+    // Writers share the read lock; only swapping in a new memory tier takes the write lock
+    private final ReadWriteLock memtableSwap = new ReentrantReadWriteLock();
+    private final Map<Long, User> hotReads = new ConcurrentHashMap<>();
+    private final List<GreetingListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService maintenance;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong segmentReads = new AtomicLong();
+    private final AtomicLong bloomSkips = new AtomicLong();
+    private volatile Tiers tiers;
+    // What the store was opened with, reported to listeners as restored; dropped by the first compaction
+    private final long openedLastId;
+    private volatile List<GreetingSegment> openedSegments;
+
+    private record Memtable(ConcurrentSkipListMap<Long, GreetingSegment.Stored> greetings, AtomicInteger writes) {
+        Memtable() {
+            this(new ConcurrentSkipListMap<>(), new AtomicInteger());
+        }
+    }
+
+    /**
+     * What readers see: the memory tier taking writes, the one being flushed if any,
+     * and the segments from newest to oldest. Replaced as a whole, never modified.
+     */
+    private record Tiers(Memtable active, Memtable flushing, List<GreetingSegment> segments) {
+    }
+
+    /**
+     * @param flushThreshold writes to the memory tier after which it is flushed to a segment
+     * @param compactionThreshold number of segments at which they are merged into one
+     * @param hotCacheEntries cold greetings kept in memory after being read; 0 to disable
+     */
+    public TieredUserDao(Path directory, int flushThreshold, int compactionThreshold, int hotCacheEntries) throws IOException {
+        if (flushThreshold <= 0 || compactionThreshold < 2 || hotCacheEntries < 0) {
+            throw new IllegalArgumentException("Flush threshold must be positive and compaction threshold at least 2");
+        }
+        this.directory = directory;
+        this.flushThreshold = flushThreshold;
+        this.compactionThreshold = compactionThreshold;
+        this.hotCacheEntries = hotCacheEntries;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        Files.createDirectories(directory);
+        this.tiers = new Tiers(new Memtable(), null, openSegments());
+        this.openedLastId = lastId.get();
+        this.openedSegments = tiers.segments();
+        this.maintenance = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "greeting-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<User> findAll() {
+        log.debug("Finding all greetings");
+        List<User> greetings = new ArrayList<>();
+        forEach(greetings::add);
+        return greetings;
+    }
+
+    @Override
+    public Optional<User> findById(String id) {
+        log.debug("Finding greeting with id: {}", id);
+        long key = key(id);
+        if (key < 0) {
+            return Optional.empty();
+        }
+        Tiers current = tiers;
+        GreetingSegment.Stored stored = findInMemory(current, key);
+        if (stored != null) {
+            return Optional.ofNullable(stored.greeting()).map(UserDaoImpl::copyOf);
+        }
+        User hot = hotReads.get(key);
+        if (hot != null) {
+            return Optional.of(UserDaoImpl.copyOf(hot));
+        }
+        stored = findInSegments(current, key);
+        if (stored == null || stored.deleted()) {
+            return Optional.empty();
+        }
+        cacheHotRead(key, current.segments(), stored.greeting());
+        return Optional.of(UserDaoImpl.copyOf(stored.greeting()));
+    }
+
+    /**
+     * Resolves every id against one view of the tiers. Ids that miss the memory tiers
+     * are looked up in the segments in ascending order, so each segment is read front
+     * to back instead of jumping around once per id.
+     */
+    @Override
+    public Map<String, User> findAllById(Collection<String> ids) {
+        log.debug("Finding {} greetings by id", ids.size());
+        Tiers current = tiers;
+        Map<String, User> found = new HashMap<>();
+        long[] cold = new long[ids.size()];
+        int coldCount = 0;
+        for (String id : ids) {
+            long key = key(id);
+            if (key < 0 || found.containsKey(id)) {
+                continue;
+            }
+            GreetingSegment.Stored stored = findInMemory(current, key);
+            if (stored != null) {
+                if (!stored.deleted()) {
+                    found.put(id, UserDaoImpl.copyOf(stored.greeting()));
+                }
+                continue;
+            }
+            User hot = hotReads.get(key);
+            if (hot != null) {
+                found.put(id, UserDaoImpl.copyOf(hot));
+            } else {
+                cold[coldCount++] = key;
+            }
+        }
+        Arrays.sort(cold, 0, coldCount);
+        long previous = -1;
+        for (int i = 0; i < coldCount; i++) {
+            long key = cold[i];
+            if (key == previous) {
+                continue;
+            }
+            previous = key;
+            GreetingSegment.Stored stored = findInSegments(current, key);
+            if (stored != null && !stored.deleted()) {
+                // Keys parsed from ids have no leading zeros, so the id is the key's decimal form
+                found.put(String.valueOf(key), UserDaoImpl.copyOf(stored.greeting()));
+                cacheHotRead(key, current.segments(), stored.greeting());
+            }
+        }
+        return UserDaoImpl.inRequestOrder(ids, found);
+    }
+
+    /**
+     * Merges the tiers from just after {@code afterId}; each segment seeks there through
+     * its sparse index instead of reading from the start.
+     */
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        log.debug("Finding {} greetings after id {}", limit, afterId);
+        Tiers current = tiers;
+        List<Iterator<GreetingSegment.Stored>> sources = new ArrayList<>();
+        sources.add(current.active().greetings().tailMap(afterId, false).values().iterator());
+        if (current.flushing() != null) {
+            sources.add(current.flushing().greetings().tailMap(afterId, false).values().iterator());
+        }
+        for (GreetingSegment segment : current.segments()) {
+            sources.add(segment.iterator(afterId + 1));
+        }
+        return merged(sources).filter(stored -> !stored.deleted()).limit(limit)
+                .map(stored -> UserDaoImpl.copyOf(stored.greeting())).toList();
+    }
+
+    @Override
+    public User save(User greeting) {
+        log.debug("Saving new greeting: {}", greeting);
+        long key = lastId.incrementAndGet();
+        User newGreeting = new User(String.valueOf(key), greeting.getMessage(), greeting.getName(), 1);
+        // The stripe keeps a racing update of the new id from being reported before its creation
+        synchronized (stripe(key)) {
+            write(key, newGreeting);
+            listeners.forEach(listener -> listener.onSaved(newGreeting));
+        }
+        return UserDaoImpl.copyOf(newGreeting);
+    }
+
+    @Override
+    public List<User> saveAll(Collection<User> greetings) {
+        log.debug("Saving batch of {} greetings", greetings.size());
+        List<User> saved = new ArrayList<>(greetings.size());
+        for (User greeting : greetings) {
+            saved.add(save(greeting));
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<User> update(String id, User greeting) {
+        log.debug("Updating greeting with id: {}", id);
+        long key = key(id);
+        if (key < 0) {
+            return Optional.empty();
+        }
+        synchronized (stripe(key)) {
+            User current = lookup(key);
+            if (current == null) {
+                return Optional.empty();
+            }
+            User updatedGreeting = new User(id, greeting.getMessage(), greeting.getName(), current.getVersion() + 1);
+            write(key, updatedGreeting);
+            listeners.forEach(listener -> listener.onUpdated(current, updatedGreeting));
+            return Optional.of(UserDaoImpl.copyOf(updatedGreeting));
+        }
+    }
+
+    @Override
+    public Optional<User> update(String id, User greeting, long expectedVersion) {
+        log.debug("Updating greeting with id: {} at version {}", id, expectedVersion);
+        long key = key(id);
+        if (key < 0) {
+            return Optional.empty();
+        }
+        synchronized (stripe(key)) {
+            User current = lookup(key);
+            if (current == null) {
+                return Optional.empty();
+            }
+            if (current.getVersion() != expectedVersion) {
+                throw new VersionConflictException(id, expectedVersion, current.getVersion());
+            }
+            User updatedGreeting = new User(id, greeting.getMessage(), greeting.getName(), current.getVersion() + 1);
+            write(key, updatedGreeting);
+            listeners.forEach(listener -> listener.onUpdated(current, updatedGreeting));
+            return Optional.of(UserDaoImpl.copyOf(updatedGreeting));
+        }
+    }
+
+    @Override
+    public boolean delete(String id) {
+        log.debug("Deleting greeting with id: {}", id);
+        long key = key(id);
+        if (key < 0) {
+            return false;
+        }
+        synchronized (stripe(key)) {
+            User current = lookup(key);
+            if (current == null) {
+                return false;
+            }
+            // Older segments may still hold the greeting, so the deletion is recorded as a tombstone
+            write(key, null);
+            listeners.forEach(listener -> listener.onRemoved(current));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return findById(id).isPresent();
+    }
+
+    /**
+     * Visits every greeting in id order, merging the tiers as it goes so nothing is
+     * copied up front. Writes made during the visit may or may not be seen.
+     */
+    @Override
+    public void forEach(Consumer<User> action) {
+        Tiers current = tiers;
+        List<Iterator<GreetingSegment.Stored>> sources = new ArrayList<>();
+        sources.add(current.active().greetings().values().iterator());
+        if (current.flushing() != null) {
+            sources.add(current.flushing().greetings().values().iterator());
+        }
+        for (GreetingSegment segment : current.segments()) {
+            sources.add(segment.iterator());
+        }
+        merged(sources).filter(stored -> !stored.deleted()).forEach(stored -> action.accept(UserDaoImpl.copyOf(stored.greeting())));
+    }
+
+    /**
+     * Deletes every matching greeting. The matches are found in one pass over the
+     * tiers, then deleted with one fork/join task per lock stripe.
+     */
+    @Override
+    public int deleteWhere(GreetingFilter filter) {
+        log.debug("Deleting greetings matching {}", filter);
+        return matchingByStripe(filter).parallelStream().mapToInt(matches -> {
+            int deleted = 0;
+            for (User match : matches) {
+                long key = Long.parseLong(match.getId());
+                synchronized (stripe(key)) {
+                    User current = lookup(key);
+                    if (current != null && matches(filter, key, current)) {
+                        write(key, null);
+                        listeners.forEach(listener -> listener.onRemoved(current));
+                        deleted++;
+                    }
+                }
+            }
+            return deleted;
+        }).sum();
+    }
+
+    /**
+     * Replaces every matching greeting with the result of {@code update}, found and
+     * applied like {@link #deleteWhere}. {@code update} runs outside the stripe lock, and
+     * its result is only stored if the greeting is still at the version it was given; a
+     * greeting changed meanwhile that still matches is passed to it again.
+     */
+    @Override
+    public int updateWhere(GreetingFilter filter, UnaryOperator<User> update) {
+        log.debug("Updating greetings matching {}", filter);
+        return matchingByStripe(filter).parallelStream().mapToInt(matches -> {
+            int updated = 0;
+            for (User match : matches) {
+                long key = Long.parseLong(match.getId());
+                User candidate = match;
+                while (candidate != null) {
+                    User changes = update.apply(UserDaoImpl.copyOf(candidate));
+                    synchronized (stripe(key)) {
+                        User current = lookup(key);
+                        if (current == null || !matches(filter, key, current)) {
+                            candidate = null;
+                        } else if (current.getVersion() != candidate.getVersion()) {
+                            candidate = current;
+                        } else {
+                            User updatedGreeting = new User(current.getId(), changes.getMessage(), changes.getName(), current.getVersion() + 1);
+                            write(key, updatedGreeting);
+                            listeners.forEach(listener -> listener.onUpdated(current, updatedGreeting));
+                            updated++;
+                            candidate = null;
+                        }
+                    }
+                }
+            }
+            return updated;
+        }).sum();
+    }
+
+    /**
+     * Registers a listener for every later change. The greetings the store was opened
+     * with are reported to it once as restored, without reading them; their names are
+     * read from the segments only if the listener walks them. Listeners should be added
+     * before the store takes writes.
+     */
+    @Override
+    public void addListener(GreetingListener listener) {
+        List<GreetingSegment> restored = openedSegments;
+        listener.onRestored(openedLastId, names -> {
+            List<Iterator<GreetingSegment.Stored>> sources = new ArrayList<>();
+            for (GreetingSegment segment : restored) {
+                sources.add(segment.iterator());
+            }
+            merged(sources).filter(stored -> !stored.deleted()).forEach(stored -> names.accept(stored.greeting().getName()));
+        });
+        listeners.add(listener);
+    }
+
+    /**
+     * Writes the memory tier to a new segment now instead of waiting for it to fill up.
+     */
+    public void flush() {
+        runMaintenance(this::flushMemtable);
+    }
+
+    /**
+     * Merges every segment into one now, dropping deleted and overwritten greetings.
+     */
+    public void compact() {
+        runMaintenance(this::compactSegments);
+    }
+
+    public int getSegmentCount() {
+        return tiers.segments().size();
+    }
+
+    public int getMemtableSize() {
+        Tiers current = tiers;
+        return current.active().greetings().size() + (current.flushing() == null ? 0 : current.flushing().greetings().size());
+    }
+
+    public int getHotCacheSize() {
+        return hotReads.size();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public long getCompactionCount() {
+        return compactions.get();
+    }
+
+    public long getSegmentReadCount() {
+        return segmentReads.get();
+    }
+
+    public long getBloomSkipCount() {
+        return bloomSkips.get();
+    }
+
+    /**
+     * Flushes the memory tier so nothing written so far is lost, then stops the compactor.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            maintenance.shutdown();
+        }
+    }
+
+    private void write(long key, User greeting) {
+        memtableSwap.readLock().lock();
+        try {
+            Memtable active = tiers.active();
+            active.greetings().put(key, new GreetingSegment.Stored(key, greeting));
+            hotReads.remove(key);
+            if (active.writes().incrementAndGet() >= flushThreshold && flushScheduled.compareAndSet(false, true)) {
+                maintenance.execute(() -> {
+                    try {
+                        flushMemtable();
+                        if (tiers.segments().size() >= compactionThreshold) {
+                            compactSegments();
+                        }
+                    } catch (RuntimeException e) {
+                        log.error("Background flush of greeting store failed", e);
+                    } finally {
+                        flushScheduled.set(false);
+                    }
+                });
+            }
+        } finally {
+            memtableSwap.readLock().unlock();
+        }
+    }
+
+    // Current greeting for key, or null; callers hold the key's stripe
+    private User lookup(long key) {
+        Tiers current = tiers;
+        GreetingSegment.Stored stored = findInMemory(current, key);
+        if (stored == null) {
+            User hot = hotReads.get(key);
+            if (hot != null) {
+                return hot;
+            }
+            stored = findInSegments(current, key);
+        }
+        return stored == null ? null : stored.greeting();
+    }
+
+    private static GreetingSegment.Stored findInMemory(Tiers current, long key) {
+        GreetingSegment.Stored stored = current.active().greetings().get(key);
+        if (stored == null && current.flushing() != null) {
+            stored = current.flushing().greetings().get(key);
+        }
+        return stored;
+    }
+
+    private GreetingSegment.Stored findInSegments(Tiers current, long key) {
+        for (GreetingSegment segment : current.segments()) {
+            if (!segment.mightContain(key)) {
+                bloomSkips.incrementAndGet();
+                continue;
+            }
+            segmentReads.incrementAndGet();
+            GreetingSegment.Stored stored = segment.find(key);
+            if (stored != null) {
+                return stored;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps a cold greeting read from {@code readFrom} in memory. A write since the read
+     * is either still in a memory tier or was flushed into a new list of segments, so
+     * checking both under the stripe keeps a racing write from leaving a stale entry.
+     */
+    private void cacheHotRead(long key, List<GreetingSegment> readFrom, User greeting) {
+        if (hotCacheEntries == 0) {
+            return;
+        }
+        synchronized (stripe(key)) {
+            Tiers current = tiers;
+            if (current.segments() != readFrom || findInMemory(current, key) != null) {
+                return;
+            }
+            if (hotReads.size() >= hotCacheEntries) {
+                // Approximate eviction: drop whichever entry the map hands out first
+                Iterator<Long> keys = hotReads.keySet().iterator();
+                if (keys.hasNext()) {
+                    hotReads.remove(keys.next());
+                }
+            }
+            hotReads.put(key, greeting);
+        }
+    }
+
+    // Matching greetings grouped by the stripe that guards them
+    private List<List<User>> matchingByStripe(GreetingFilter filter) {
+        List<List<User>> byStripe = new ArrayList<>(LOCK_STRIPES);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            byStripe.add(new ArrayList<>());
+        }
+        forEach(greeting -> {
+            long key = Long.parseLong(greeting.getId());
+            if (matches(filter, key, greeting)) {
+                byStripe.get(stripeIndex(key)).add(greeting);
+            }
+        });
+        byStripe.removeIf(List::isEmpty);
+        return byStripe;
+    }
+
+    private static boolean matches(GreetingFilter filter, long key, User greeting) {
+        return filter.matchesId(key) && (!filter.needsContent() || filter.matchesContent(greeting));
+    }
+
+    private void flushMemtable() {
+        Tiers current;
+        memtableSwap.writeLock().lock();
+        try {
+            current = tiers;
+            if (current.active().greetings().isEmpty()) {
+                return;
+            }
+            current = new Tiers(new Memtable(), current.active(), current.segments());
+            tiers = current;
+        } finally {
+            memtableSwap.writeLock().unlock();
+        }
+
+        List<GreetingSegment> written = writeSegments(current.flushing().greetings().values().iterator(), 0, SEGMENT_SUFFIX);
+        List<GreetingSegment> segments = new ArrayList<>(written);
+        segments.addAll(current.segments());
+        // Only this thread replaces the tiers after construction, so the active tier read here is current
+        tiers = new Tiers(tiers.active(), null, List.copyOf(segments));
+        flushes.incrementAndGet();
+        log.debug("Flushed {} greetings to {}", current.flushing().greetings().size(), written);
+    }
+
+    private void compactSegments() {
+        List<GreetingSegment> inputs = tiers.segments();
+        if (inputs.size() < 2) {
+            return;
+        }
+        long covers = inputs.stream().mapToLong(GreetingSegment::generation).max().orElse(0);
+        List<Iterator<GreetingSegment.Stored>> sources = new ArrayList<>();
+        for (GreetingSegment segment : inputs) {
+            sources.add(segment.iterator());
+        }
+        // Every segment takes part, so tombstones have nothing left to hide and are dropped
+        Iterator<GreetingSegment.Stored> merged = merged(sources).filter(stored -> !stored.deleted()).iterator();
+        List<GreetingSegment> written = writeSegments(merged, covers, COMPACTING_SUFFIX);
+
+        // Until the marker exists a crash discards the outputs; from then on it completes the compaction
+        Path marker = directory.resolve(COMPACTION_MARKER);
+        List<GreetingSegment> outputs = new ArrayList<>(written.size());
+        try {
+            Files.write(marker, new byte[0]);
+            syncDirectory();
+            for (GreetingSegment segment : written) {
+                outputs.add(GreetingSegment.open(publish(segment.file())));
+            }
+            syncDirectory();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not finish compaction in " + directory, e);
+        }
+
+        Tiers current = tiers;
+        tiers = new Tiers(current.active(), current.flushing(), List.copyOf(outputs));
+        openedSegments = List.of();
+        compactions.incrementAndGet();
+        // Readers still holding the old segments keep their mappings, which outlive the files
+        for (GreetingSegment segment : inputs) {
+            try {
+                Files.deleteIfExists(segment.file());
+            } catch (IOException e) {
+                log.warn("Could not delete compacted segment {}", segment.file(), e);
+            }
+        }
+        try {
+            Files.deleteIfExists(marker);
+        } catch (IOException e) {
+            log.warn("Could not delete compaction marker {}", marker, e);
+        }
+        log.info("Compacted {} greeting segments into {}", inputs.size(), outputs.size());
+    }
+
+    private List<GreetingSegment> writeSegments(Iterator<GreetingSegment.Stored> records, long covers, String suffix) {
+        List<GreetingSegment> segments = new ArrayList<>();
+        try {
+            while (records.hasNext()) {
+                long generation = lastGeneration.incrementAndGet();
+                Path file = directory.resolve(String.format("segment-%016d%s", generation, suffix));
+                try (GreetingSegment.Writer writer = new GreetingSegment.Writer(file, generation, covers, lastId.get())) {
+                    while (records.hasNext() && writer.size() < MAX_SEGMENT_BYTES) {
+                        writer.write(records.next());
+                    }
+                    segments.add(0, writer.commit());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write greeting segment in " + directory, e);
+        }
+        return segments;
+    }
+
+    private List<GreetingSegment> openSegments() throws IOException {
+        Path marker = directory.resolve(COMPACTION_MARKER);
+        boolean compactionFinished = Files.exists(marker);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.delete(file);
+                } else if (name.endsWith(COMPACTING_SUFFIX)) {
+                    if (compactionFinished) {
+                        publish(file);
+                    } else {
+                        // Without the marker some outputs may be missing, but the inputs are all still there
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+        List<GreetingSegment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                segments.add(GreetingSegment.open(file));
+            }
+        }
+        // A crash after the compaction marker but before deleting the inputs leaves the inputs behind
+        long covered = segments.stream().mapToLong(GreetingSegment::coversGeneration).max().orElse(0);
+        List<GreetingSegment> live = new ArrayList<>();
+        for (GreetingSegment segment : segments) {
+            if (segment.generation() <= covered) {
+                Files.delete(segment.file());
+            } else {
+                live.add(segment);
+            }
+        }
+        Files.deleteIfExists(marker);
+        live.sort(Comparator.comparingLong(GreetingSegment::generation).reversed());
+        for (GreetingSegment segment : live) {
+            lastGeneration.accumulateAndGet(segment.generation(), Math::max);
+            lastId.accumulateAndGet(segment.lastId(), Math::max);
+        }
+        if (!live.isEmpty()) {
+            log.info("Opened {} greeting segments in {}", live.size(), directory);
+        }
+        return List.copyOf(live);
+    }
+
+    // Moves a finished compaction output to its segment name
+    private static Path publish(Path compacting) throws IOException {
+        String name = compacting.getFileName().toString();
+        Path file = compacting.resolveSibling(name.substring(0, name.length() - COMPACTING_SUFFIX.length()) + SEGMENT_SUFFIX);
+        return Files.move(compacting, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Makes new and renamed files survive a crash; some platforms cannot open a directory for this
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync greeting store directory {}", directory, e);
+        }
+    }
+
+    private void runMaintenance(Runnable task) {
+        try {
+            maintenance.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for greeting store maintenance", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Object stripe(long key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    private static int stripeIndex(long key) {
+        return (int) ((key ^ (key >>> 32)) & (LOCK_STRIPES - 1));
+    }
+
+    // Ids are the decimal form of a positive counter; anything else cannot be stored here
+    private static long key(String id) {
+        if (id == null || id.isEmpty() || id.length() > 18 || id.charAt(0) == '0') {
+            return -1;
+        }
+        long key = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    /**
+     * Merges sources that are each sorted by id. Sources come newest first, and for an
+     * id present in several of them only the newest record is passed on.
+     */
+    private static Stream<GreetingSegment.Stored> merged(List<Iterator<GreetingSegment.Stored>> sources) {
+        record Head(GreetingSegment.Stored stored, int source) {
+        }
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparingLong((Head head) -> head.stored().id())
+                .thenComparingInt(Head::source));
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).hasNext()) {
+                heads.add(new Head(sources.get(i).next(), i));
+            }
+        }
+        Iterator<GreetingSegment.Stored> iterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public GreetingSegment.Stored next() {
+                Head newest = heads.poll();
+                advance(newest.source());
+                while (!heads.isEmpty() && heads.peek().stored().id() == newest.stored().id()) {
+                    advance(heads.poll().source());
+                }
+                return newest.stored();
+            }
+
+            private void advance(int source) {
+                if (sources.get(source).hasNext()) {
+                    heads.add(new Head(sources.get(source).next(), source));
+                }
+            }
+        };
+        Iterable<GreetingSegment.Stored> iterable = () -> iterator;
+        return StreamSupport.stream(iterable.spliterator(), false);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel used by the greeting store to expire entries.
+ * Scheduling and cancelling a timeout are O(1); entries are cascaded down
+ * from the coarser wheels as time advances. The wheel is not thread safe,
+ * callers are expected to hold their own lock.
+ */
+public class TimingWheel<K> {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * A scheduled timeout, linked into exactly one wheel slot while pending.
+     */
+    public static final class Timeout<K> {
+        private final K key;
+        private final long expiryTick;
+        private Timeout<K> prev;
+        private Timeout<K> next;
+        private Slot<K> slot;
+
+        private Timeout(K key, long expiryTick) {
+            this.key = key;
+            this.expiryTick = expiryTick;
+        }
+
+        public K getKey() {
+            return key;
+        }
+    }
+
+    private static final class Slot<K> {
+        private Timeout<K> head;
+
+        void add(Timeout<K> timeout) {
+            timeout.slot = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout<K> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.slot = null;
+        }
+
+        Timeout<K> drain() {
+            Timeout<K> drained = head;
+            head = null;
+            return drained;
+        }
+    }
+
+    private final long tickMillis;
+    private final Slot<K>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        @SuppressWarnings("unchecked")
+        Slot<K>[][] slots = (Slot<K>[][]) new Slot<?>[LEVELS][WHEEL_SIZE];
+        this.wheels = slots;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheels[level][i] = new Slot<>();
+            }
+        }
+    }
+
+    /**
+     * Schedules {@code key} to expire once the wheel has advanced past
+     * {@code deadlineMillis}. Expiry is rounded up to the next tick.
+     */
+    public Timeout<K> schedule(K key, long deadlineMillis) {
+        long expiryTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        Timeout<K> timeout = new Timeout<>(key, expiryTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public void cancel(Timeout<K> timeout) {
+        if (timeout != null && timeout.slot != null) {
+            timeout.slot.remove(timeout);
+            size--;
+        }
+    }
+
+    /**
+     * Advances the wheel to {@code nowMillis}, handing every expired key to
+     * {@code onExpire}. Ticks whose slots are all empty are skipped, so the cost
+     * depends on the slots that hold timeouts rather than on how long the wheel
+     * sat idle.
+     */
+    public void advance(long nowMillis, Consumer<K> onExpire) {
+        long targetTick = nowMillis / tickMillis;
+        if (size == 0) {
+            // Nothing pending, no need to walk the idle ticks one by one
+            currentTick = Math.max(currentTick, targetTick);
+            return;
+        }
+        while (currentTick < targetTick) {
+            currentTick = Math.min(nextBusyTick(), targetTick);
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            expire(onExpire);
+            if (size == 0) {
+                currentTick = targetTick;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The first tick after the current one at which a slot holding timeouts is expired or cascaded
+    private long nextBusyTick() {
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            long base = currentTick >>> shift;
+            for (int i = 1; i <= WHEEL_SIZE; i++) {
+                if (wheels[level][(int) ((base + i) & WHEEL_MASK)].head != null) {
+                    next = Math.min(next, (base + i) << shift);
+                    break;
+                }
+            }
+        }
+        return next;
+    }
+
+    private void cascade(int level) {
+        int index = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        Timeout<K> timeout = wheels[level][index].drain();
+        while (timeout != null) {
+            Timeout<K> next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void expire(Consumer<K> onExpire) {
+        Timeout<K> timeout = wheels[0][(int) (currentTick & WHEEL_MASK)].drain();
+        while (timeout != null) {
+            Timeout<K> next = timeout.next;
+            if (timeout.expiryTick <= currentTick) {
+                timeout.slot = null;
+                timeout.prev = null;
+                timeout.next = null;
+                size--;
+                onExpire.accept(timeout.key);
+            } else {
+                place(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout<K> timeout) {
+        long expiryTick = Math.max(timeout.expiryTick, currentTick);
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            if ((expiryTick >>> shift) - (currentTick >>> shift) < WHEEL_SIZE) {
+                wheels[level][(int) ((expiryTick >>> shift) & WHEEL_MASK)].add(timeout);
+                return;
+            }
+        }
+        // Beyond the range of the top wheel: park in its furthest slot and re-place on cascade
+        int shift = WHEEL_BITS * (LEVELS - 1);
+        wheels[LEVELS - 1][(int) (((currentTick >>> shift) + WHEEL_MASK) & WHEEL_MASK)].add(timeout);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Adds the time spent in the wrapped store to the current {@link RequestTrace}.
+ */
+public class TracingUserDao implements UserDAO {
+
+    private final UserDAO delegate;
+
+    public TracingUserDao(UserDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<User> findAll() {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.findAll();
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public Optional<User> findById(String id) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.findById(id);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public Map<String, User> findAllById(Collection<String> ids) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.findAllById(ids);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.findPage(afterId, limit);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public User save(User greeting) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.save(greeting);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public List<User> saveAll(Collection<User> greetings) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.saveAll(greetings);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public Optional<User> update(String id, User greeting) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.update(id, greeting);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public Optional<User> update(String id, User greeting, long expectedVersion) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.update(id, greeting, expectedVersion);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public boolean delete(String id) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.delete(id);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public boolean exists(String id) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.exists(id);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        long start = RequestTrace.storeStarted();
+        try {
+            delegate.forEach(action);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public int deleteWhere(GreetingFilter filter) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.deleteWhere(filter);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+
+    @Override
+    public int updateWhere(GreetingFilter filter, UnaryOperator<User> update) {
+        long start = RequestTrace.storeStarted();
+        try {
+            return delegate.updateWhere(filter, update);
+        } finally {
+            RequestTrace.storeFinished(start);
+        }
+    }
+}
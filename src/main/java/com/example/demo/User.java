@@ -5,6 +5,8 @@ public class User {
     private String id;
     private String message;
     private String name;
+    // Assigned by the store: 1 on creation, incremented by every update
+    private long version;
 
     // Default constructor for deserialization
     public User() {
@@ -23,6 +25,11 @@ public class User {
         this.name = name;
     }
 
+    public User(String id, String message, String name, long version) {
+        this(id, message, name);
+        this.version = version;
+    }
+
     // Getters and setters
     public String getId() {
         return id;
@@ -48,13 +55,21 @@ public class User {
         this.name = name;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // toString method (update to include name)
     @Override
     public String toString() {
-        return "Greeting{" + "id='" + id + '\'' + ", message='" + message + '\'' + ", name='" + name + '\'' + '}';
+        return "Greeting{" + "id='" + id + '\'' + ", message='" + message + '\'' + ", name='" + name + '\'' + ", version=" + version + '}';
     }
 
-    // equals and hashCode (update to include name)
+    // equals and hashCode (update to include name); the version is store metadata and not part of equality
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,13 +1,41 @@
 package com.example.demo;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 public interface UserDAO {
     List<User> findAll();
     Optional<User> findById(String id);
+
+    /**
+     * Looks up many greetings at once. The result is keyed by the requested id in
+     * request order; ids without a greeting are left out.
+     */
+    Map<String, User> findAllById(Collection<String> ids);
+
+    /**
+     * Up to {@code limit} greetings with an id above {@code afterId}, in id order.
+     * Passing the id of the last greeting of a page continues after it, so the
+     * store can be walked without copying all of it.
+     */
+    List<User> findPage(long afterId, int limit);
     User save(User greeting);
+    List<User> saveAll(Collection<User> greetings);
     Optional<User> update(String id, User greeting);
+    Optional<User> update(String id, User greeting, long expectedVersion);
     boolean delete(String id);
     boolean exists(String id);
+    void forEach(Consumer<User> action);
+    int deleteWhere(GreetingFilter filter);
+    /**
+     * Replaces every greeting matching {@code filter} with the result of {@code update},
+     * keeping its id, and returns how many were replaced. {@code update} is called without
+     * store locks held and may be called again for a greeting changed concurrently, so it
+     * must not have side effects.
+     */
+    int updateWhere(GreetingFilter filter, UnaryOperator<User> update);
 }
\ No newline at end of file
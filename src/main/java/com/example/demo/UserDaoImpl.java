@@ -1,74 +1,831 @@
 package com.example.demo;
 
 import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import org.slf4j.Logger;
 
-public class UserDaoImpl implements UserDAO {
+/**
+ * In-memory greeting store split into independently locked partitions. Each
+ * partition keeps its greetings in insertion order with an intrusive LRU list
+ * and its own expiry timing wheel, so operations on greetings in different
+ * partitions do not contend. Bounded stores evict per partition, which makes
+ * the LRU order approximate across partitions. A lock-free index of the entries
+ * by id lets the whole store be walked in id order without holding partition locks.
+ *
+ * <p>Greetings are handed out as copies, so callers cannot change a stored greeting
+ * or the values it shares with others through the {@link InterningPool}. Writes
+ * intern their values before taking the partition lock and return the values they
+ * replace after releasing it.
+ */
+public class UserDaoImpl implements GreetingStore {
 
-    private final List<User> greetings = Collections.synchronizedList(new ArrayList<>());
     private static final Logger log = LoggerFactory.getLogger(UserDaoImpl.class);
+    private static final long TICK_MILLIS = 100;
+    private static final int MAX_PARTITIONS = 16;
+    // Bounded stores keep at least this many entries per partition so eviction stays close to a global LRU
+    private static final int MIN_ENTRIES_PER_PARTITION = 64;
+    // Rough heap taken by an entry besides its strings: the entry, its greeting and the map node
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final Partition[] partitions;
+    private final Duration defaultTtl;
+    private final Clock clock;
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final List<GreetingListener> listeners = new CopyOnWriteArrayList<>();
+    // Every stored entry by numeric id, for walking the store in id order without holding partition locks
+    private final ConcurrentSkipListMap<Long, Entry> byId = new ConcurrentSkipListMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    // Shares name and message instances between greetings; null when disabled
+    private final InterningPool values;
+
+    private static final class Entry {
+        private final String id;
+        // Numeric form of the id; ids are handed out in creation order
+        private final long seq;
+        // Null until first access for entries restored from a snapshot
+        private User greeting;
+        private final GreetingSnapshot source;
+        private final int sourceOffset;
+        private final Duration ttl;
+        // Estimated heap taken by the entry, counted against the byte capacity
+        private long bytes;
+        private TimingWheel.Timeout<String> timeout;
+        private Entry lruPrev;
+        private Entry lruNext;
+
+        private Entry(String id, User greeting, GreetingSnapshot source, int sourceOffset, Duration ttl) {
+            this.id = id;
+            this.seq = parseSeq(id);
+            this.greeting = greeting;
+            this.source = source;
+            this.sourceOffset = sourceOffset;
+            this.ttl = ttl;
+        }
+    }
+
+    // Unbounded store without expiry
+    public UserDaoImpl() {
+        this(0, Duration.ZERO);
+    }
+
+    public UserDaoImpl(int maxEntries, Duration defaultTtl) {
+        this(maxEntries, defaultTtl, Clock.systemUTC());
+    }
+
+    public UserDaoImpl(int maxEntries, Duration defaultTtl, Clock clock) {
+        this(maxEntries, defaultTtl, clock, true);
+    }
+
+    public UserDaoImpl(int maxEntries, Duration defaultTtl, Clock clock, boolean deduplicateValues) {
+        this(maxEntries, 0, defaultTtl, clock, deduplicateValues);
+    }
+
+    /**
+     * @param maxEntries maximum number of greetings kept, least recently used are evicted first; 0 for unbounded
+     * @param maxBytes estimated heap the greetings may take before the least recently used are evicted; 0 for
+     *                 unbounded. Names and messages shared through the pool are counted for every greeting using them.
+     * @param defaultTtl time to live applied on save and update; zero for no expiry
+     * @param deduplicateValues whether greetings share equal names and messages through an {@link InterningPool}
+     */
+    public UserDaoImpl(int maxEntries, long maxBytes, Duration defaultTtl, Clock clock, boolean deduplicateValues) {
+        maxEntries = Math.max(maxEntries, 0);
+        maxBytes = Math.max(maxBytes, 0);
+        this.defaultTtl = defaultTtl == null ? Duration.ZERO : defaultTtl;
+        this.clock = clock;
+        this.values = deduplicateValues ? new InterningPool() : null;
+
+        // A byte capacity leaves room for at least that many entries of bare overhead per partition
+        long minEntriesAllowed = Math.min(maxEntries == 0 ? Long.MAX_VALUE : maxEntries,
+                maxBytes == 0 ? Long.MAX_VALUE : maxBytes / ENTRY_OVERHEAD_BYTES);
+        int partitionCount = minEntriesAllowed == Long.MAX_VALUE
+                ? MAX_PARTITIONS
+                : (int) Math.max(1, Math.min(MAX_PARTITIONS, Long.highestOneBit(minEntriesAllowed / MIN_ENTRIES_PER_PARTITION)));
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            // Spread the capacity so the partitions add up to exactly maxEntries
+            int capacity = maxEntries == 0 ? 0 : maxEntries / partitionCount + (i < maxEntries % partitionCount ? 1 : 0);
+            long byteCapacity = maxBytes == 0 ? 0 : Math.max(1, maxBytes / partitionCount);
+            partitions[i] = new Partition(capacity, byteCapacity);
+        }
+    }
 
     @Override
     public List<User> findAll() {
         log.debug("Finding all greetings");
-        synchronized(greetings) {
-            return new ArrayList<>(greetings);
+        List<Entry> entries = new ArrayList<>();
+        for (Partition partition : partitions) {
+            synchronized(partition) {
+                partition.expireEntries();
+                // Decode while the lock is held, entries restored from a snapshot are decoded lazily
+                for (Entry entry : partition.greetings.values()) {
+                    greetingOf(entry);
+                    entries.add(entry);
+                }
+            }
+        }
+        // Ids are handed out in creation order, so sorting by id restores insertion order across partitions
+        entries.sort(Comparator.comparingLong(entry -> entry.seq));
+        List<User> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            result.add(copyOf(entry.greeting));
         }
+        return result;
     }
 
     @Override
     public Optional<User> findById(String id) {
         log.debug("Finding greeting with id: {}", id);
-        synchronized(greetings) {
-            return greetings.stream().filter(g -> g.getId().equals(id)).findFirst();
+        Partition partition = partitionFor(id);
+        synchronized(partition) {
+            partition.expireEntries();
+            Entry entry = partition.greetings.get(id);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            partition.touch(entry);
+            return Optional.of(copyOf(greetingOf(entry)));
         }
     }
 
+    /**
+     * Groups the ids by partition so each partition lock is taken once, however many
+     * of the ids fall into it.
+     */
+    @Override
+    public Map<String, User> findAllById(Collection<String> ids) {
+        log.debug("Finding {} greetings by id", ids.size());
+        return inRequestOrder(ids, find(ids, true));
+    }
+
+    /**
+     * Pages through the id index: the next ids after {@code afterId} are read from it
+     * without a lock, then looked up taking every partition lock at most once. Greetings
+     * removed in between are made up for from the ids that follow. Paging does not count
+     * as use for the LRU order.
+     */
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        log.debug("Finding {} greetings after id {}", limit, afterId);
+        List<User> page = new ArrayList<>();
+        long cursor = Math.max(afterId, 0);
+        while (page.size() < limit) {
+            // Non-numeric ids are indexed under Long.MAX_VALUE and are never paged
+            Iterator<Long> candidates = byId.subMap(cursor, false, Long.MAX_VALUE, false).keySet().iterator();
+            List<String> ids = new ArrayList<>();
+            while (ids.size() < limit - page.size() && candidates.hasNext()) {
+                cursor = candidates.next();
+                ids.add(String.valueOf(cursor));
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+            Map<String, User> found = find(ids, false);
+            for (String id : ids) {
+                User greeting = found.get(id);
+                if (greeting != null) {
+                    page.add(greeting);
+                }
+            }
+        }
+        return page;
+    }
+
+    // Copies of the greetings found, taking each partition lock once
+    private Map<String, User> find(Collection<String> ids, boolean touch) {
+        List<List<String>> idsByPartition = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            idsByPartition.add(new ArrayList<>());
+        }
+        for (String id : ids) {
+            if (id != null) {
+                idsByPartition.get(partitionIndex(id)).add(id);
+            }
+        }
+        Map<String, User> found = new HashMap<>();
+        for (int i = 0; i < partitions.length; i++) {
+            List<String> partitionIds = idsByPartition.get(i);
+            if (partitionIds.isEmpty()) {
+                continue;
+            }
+            Partition partition = partitions[i];
+            synchronized(partition) {
+                partition.expireEntries();
+                for (String id : partitionIds) {
+                    Entry entry = partition.greetings.get(id);
+                    if (entry != null) {
+                        if (touch) {
+                            partition.touch(entry);
+                        }
+                        found.put(id, copyOf(greetingOf(entry)));
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
     @Override
     public User save(User greeting) {
+        return save(greeting, defaultTtl);
+    }
+
+    /**
+     * Saves a greeting that expires after {@code ttl}, overriding the store default.
+     */
+    public User save(User greeting, Duration ttl) {
         log.debug("Saving new greeting: {}", greeting);
-        synchronized(greetings) {
-            String id = String.valueOf(greetings.size() + 1);
-            User newGreeting = new User(id, greeting.getMessage(), greeting.getName()); // Include the name field
-            greetings.add(newGreeting);
-            return newGreeting;
+        String id = String.valueOf(lastId.incrementAndGet());
+        User newGreeting = pooled(id, greeting.getMessage(), greeting.getName(), 1); // Include the name field
+        Partition partition = partitionFor(id);
+        synchronized(partition) {
+            partition.expireEntries();
+            partition.insert(newGreeting, ttl);
         }
+        return copyOf(newGreeting);
+    }
+
+    /**
+     * Saves a batch taking each partition lock only once. Ids are assigned as one
+     * contiguous block in the order of the batch.
+     */
+    @Override
+    public List<User> saveAll(Collection<User> batch) {
+        log.debug("Saving batch of {} greetings", batch.size());
+        long id = lastId.getAndAdd(batch.size()) + 1;
+        List<User> saved = new ArrayList<>(batch.size());
+        List<List<User>> byPartition = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            byPartition.add(new ArrayList<>());
+        }
+        for (User greeting : batch) {
+            User newGreeting = pooled(String.valueOf(id++), greeting.getMessage(), greeting.getName(), 1);
+            saved.add(copyOf(newGreeting));
+            byPartition.get(partitionIndex(newGreeting.getId())).add(newGreeting);
+        }
+        for (int i = 0; i < partitions.length; i++) {
+            if (!byPartition.get(i).isEmpty()) {
+                Partition partition = partitions[i];
+                synchronized(partition) {
+                    partition.expireEntries();
+                    for (User newGreeting : byPartition.get(i)) {
+                        partition.insert(newGreeting, defaultTtl);
+                    }
+                }
+            }
+        }
+        return saved;
     }
 
     @Override
     public Optional<User> update(String id, User greeting) {
         log.debug("Updating greeting with id: {}", id);
-        synchronized(greetings) {
-            Optional<User> existingGreeting = findById(id);
-            if (existingGreeting.isEmpty()) {
-                return Optional.empty();
+        User changes = pooled(id, greeting.getMessage(), greeting.getName(), 0);
+        // Whichever values end up unused go back to the pool once the lock is released
+        User replaced = changes;
+        Partition partition = partitionFor(id);
+        try {
+            synchronized(partition) {
+                partition.expireEntries();
+                Entry entry = partition.greetings.get(id);
+                if (entry == null) {
+                    return Optional.empty();
+                }
+                replaced = greetingOf(entry);
+                User updatedGreeting = partition.replace(entry, changes);
+                partition.touch(entry);
+                partition.evictOverflow();
+                return Optional.of(copyOf(updatedGreeting));
             }
+        } finally {
+            release(replaced);
+        }
+    }
 
-            int index = greetings.indexOf(existingGreeting.get());
-            User updatedGreeting = new User(id, greeting.getMessage(), greeting.getName());  // Include the name field
-
-            greetings.set(index, updatedGreeting);
-            return Optional.of(updatedGreeting);
+    /**
+     * Updates the greeting only if it is still at {@code expectedVersion}. Only the
+     * partition holding the greeting is locked, so updates to other greetings proceed
+     * in parallel.
+     *
+     * @throws VersionConflictException if the greeting is at a different version
+     */
+    @Override
+    public Optional<User> update(String id, User greeting, long expectedVersion) {
+        log.debug("Updating greeting with id: {} at version {}", id, expectedVersion);
+        User changes = pooled(id, greeting.getMessage(), greeting.getName(), 0);
+        User replaced = changes;
+        Partition partition = partitionFor(id);
+        try {
+            synchronized(partition) {
+                partition.expireEntries();
+                Entry entry = partition.greetings.get(id);
+                if (entry == null) {
+                    return Optional.empty();
+                }
+                long currentVersion = greetingOf(entry).getVersion();
+                if (currentVersion != expectedVersion) {
+                    throw new VersionConflictException(id, expectedVersion, currentVersion);
+                }
+                replaced = greetingOf(entry);
+                User updatedGreeting = partition.replace(entry, changes);
+                partition.touch(entry);
+                partition.evictOverflow();
+                return Optional.of(copyOf(updatedGreeting));
+            }
+        } finally {
+            release(replaced);
         }
     }
 
     @Override
     public boolean delete(String id) {
         log.debug("Deleting greeting with id: {}", id);
-        synchronized(greetings) {
-            return findById(id).map(greetings::remove).orElse(false);
+        Partition partition = partitionFor(id);
+        Entry removed;
+        synchronized(partition) {
+            partition.expireEntries();
+            removed = partition.removeEntry(id);
         }
+        if (removed == null) {
+            return false;
+        }
+        release(removed);
+        return true;
     }
 
     @Override
     public boolean exists(String id) {
         log.debug("Checking if greeting exists with id: {}", id);
-        synchronized(greetings) {
-            return greetings.stream().anyMatch(g -> g.getId().equals(id));
+        Partition partition = partitionFor(id);
+        synchronized(partition) {
+            partition.expireEntries();
+            return partition.greetings.containsKey(id);
+        }
+    }
+
+    /**
+     * Visits every greeting in id order. Each greeting is copied under its partition
+     * lock, held for that greeting only, and visited after the lock is released, so
+     * a slow action, such as a write to a client, never holds up writers and nothing
+     * is buffered. Greetings saved or removed during the visit may or may not be seen.
+     */
+    @Override
+    public void forEach(Consumer<User> action) {
+        for (Entry entry : byId.values()) {
+            User greeting = copyIfStored(entry);
+            if (greeting != null) {
+                action.accept(greeting);
+            }
+        }
+    }
+
+    // Copy of the entry's greeting, or null if it was removed since it was found in the id index
+    private User copyIfStored(Entry entry) {
+        Partition partition = partitionFor(entry.id);
+        synchronized(partition) {
+            partition.expireEntries();
+            return partition.greetings.get(entry.id) == entry ? copyOf(greetingOf(entry)) : null;
+        }
+    }
+
+    /**
+     * Deletes every matching greeting, one fork/join task per partition.
+     */
+    @Override
+    public int deleteWhere(GreetingFilter filter) {
+        log.debug("Deleting greetings matching {}", filter);
+        return Arrays.stream(partitions).parallel().mapToInt(partition -> {
+            List<Entry> removed = new ArrayList<>();
+            synchronized(partition) {
+                partition.expireEntries();
+                for (Entry entry : partition.matching(filter)) {
+                    removed.add(partition.removeEntry(entry.id));
+                }
+            }
+            removed.forEach(this::release);
+            return removed.size();
+        }).sum();
+    }
+
+    /**
+     * Replaces every matching greeting with the result of {@code update}, one fork/join
+     * task per partition. The id is always kept. {@code update} runs outside the partition
+     * lock on a copy, and its result is only stored if the greeting is still at the version
+     * it was given; a greeting changed meanwhile that still matches is passed to it again.
+     */
+    @Override
+    public int updateWhere(GreetingFilter filter, UnaryOperator<User> update) {
+        log.debug("Updating greetings matching {}", filter);
+        return Arrays.stream(partitions).parallel().mapToInt(partition -> {
+            List<User> candidates = new ArrayList<>();
+            synchronized(partition) {
+                partition.expireEntries();
+                for (Entry entry : partition.matching(filter)) {
+                    candidates.add(copyOf(greetingOf(entry)));
+                }
+            }
+            int updated = 0;
+            while (!candidates.isEmpty()) {
+                List<User> changes = new ArrayList<>(candidates.size());
+                for (User candidate : candidates) {
+                    User changed = update.apply(copyOf(candidate));
+                    changes.add(pooled(candidate.getId(), changed.getMessage(), changed.getName(), 0));
+                }
+                // Whichever values end up unused go back to the pool once the lock is released
+                List<User> replaced = new ArrayList<>(changes.size());
+                List<User> changedMeanwhile = new ArrayList<>();
+                synchronized(partition) {
+                    partition.expireEntries();
+                    for (int i = 0; i < candidates.size(); i++) {
+                        User candidate = candidates.get(i);
+                        Entry entry = partition.greetings.get(candidate.getId());
+                        if (entry == null) {
+                            replaced.add(changes.get(i));
+                            continue;
+                        }
+                        User current = greetingOf(entry);
+                        if (current.getVersion() != candidate.getVersion()) {
+                            if (partition.matches(entry, filter)) {
+                                changedMeanwhile.add(copyOf(current));
+                            }
+                            replaced.add(changes.get(i));
+                            continue;
+                        }
+                        partition.replace(entry, changes.get(i));
+                        replaced.add(current);
+                        updated++;
+                    }
+                    partition.evictOverflow();
+                }
+                replaced.forEach(this::release);
+                candidates = changedMeanwhile;
+            }
+            return updated;
+        }).sum();
+    }
+
+    /**
+     * Adds the greetings of a snapshot without decoding them; each one is decoded
+     * on first access. Greetings already in the store keep precedence. Listeners are
+     * told up front, before any eviction the restore causes, and decode the names they
+     * need from the snapshot later.
+     */
+    public int restore(GreetingSnapshot snapshot) throws IOException {
+        // Records skipped because their greeting is already stored, by position in the snapshot
+        BitSet skipped = new BitSet();
+        lastId.accumulateAndGet(snapshot.lastId(), Math::max);
+        listeners.forEach(listener -> listener.onRestored(snapshot.lastId(), action -> {
+            int[] position = {0};
+            try {
+                snapshot.forEachRecord((id, offset) -> {
+                    boolean restored;
+                    synchronized(skipped) {
+                        restored = !skipped.get(position[0]++);
+                    }
+                    if (restored) {
+                        action.accept(snapshot.decodeName(offset));
+                    }
+                });
+            } catch (IOException e) {
+                // The records were all read once already
+                throw new UncheckedIOException(e);
+            }
+        }));
+
+        int[] position = {0};
+        snapshot.forEachRecord((id, offset) -> {
+            Partition partition = partitionFor(id);
+            synchronized(partition) {
+                if (partition.greetings.containsKey(id)) {
+                    synchronized(skipped) {
+                        skipped.set(position[0]);
+                    }
+                } else {
+                    Entry entry = new Entry(id, null, snapshot, offset, defaultTtl);
+                    entry.timeout = partition.scheduleExpiry(id, defaultTtl);
+                    // Until it is decoded, the entry is estimated from the size of its record
+                    partition.add(entry, ENTRY_OVERHEAD_BYTES + snapshot.recordLength(offset));
+                    partition.evictOverflow();
+                }
+            }
+            position[0]++;
+        });
+        int restored = position[0] - skipped.cardinality();
+        log.info("Restored {} greetings from snapshot", restored);
+        return restored;
+    }
+
+    /**
+     * Writes every greeting to {@code file}. Only references are captured under the
+     * partition locks; encoding and disk writes happen after they are released, and
+     * greetings that were never decoded are copied straight from their source snapshot.
+     */
+    public int writeSnapshot(Path file) throws IOException {
+        List<Object> views = new ArrayList<>();
+        for (Partition partition : partitions) {
+            synchronized(partition) {
+                partition.expireEntries();
+                for (Entry entry : partition.greetings.values()) {
+                    views.add(entry.greeting != null ? entry.greeting : entry);
+                }
+            }
+        }
+        long snapshotLastId = lastId.get();
+
+        try (GreetingSnapshot.Writer writer = new GreetingSnapshot.Writer(file, views.size(), snapshotLastId)) {
+            for (Object view : views) {
+                if (view instanceof User greeting) {
+                    writer.write(greeting);
+                } else {
+                    Entry entry = (Entry) view;
+                    writer.copy(entry.source, entry.sourceOffset);
+                }
+            }
+            writer.commit();
+        }
+        return views.size();
+    }
+
+    @Override
+    public void addListener(GreetingListener listener) {
+        listeners.add(listener);
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public long getExpirationCount() {
+        return expirations.get();
+    }
+
+    public long getDeduplicatedBytes() {
+        return values == null ? 0 : values.getBytesSaved();
+    }
+
+    public int getDistinctValueCount() {
+        return values == null ? 0 : values.getDistinctValues();
+    }
+
+    public long getEstimatedBytes() {
+        long bytes = 0;
+        for (Partition partition : partitions) {
+            synchronized(partition) {
+                partition.expireEntries();
+                bytes += partition.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Partition partition : partitions) {
+            synchronized(partition) {
+                partition.expireEntries();
+                size += partition.greetings.size();
+            }
+        }
+        return size;
+    }
+
+    static Map<String, User> inRequestOrder(Collection<String> ids, Map<String, User> found) {
+        Map<String, User> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            User greeting = found.get(id);
+            if (greeting != null) {
+                result.put(id, greeting);
+            }
+        }
+        return result;
+    }
+
+    int partitionCount() {
+        return partitions.length;
+    }
+
+    private Partition partitionFor(String id) {
+        return partitions[partitionIndex(id)];
+    }
+
+    private int partitionIndex(String id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (partitions.length - 1);
+    }
+
+    // Decodes entries restored from a snapshot on first access
+    private User greetingOf(Entry entry) {
+        if (entry.greeting == null) {
+            User decoded = entry.source.decode(entry.sourceOffset);
+            entry.greeting = pooled(decoded.getId(), decoded.getMessage(), decoded.getName(), decoded.getVersion());
+        }
+        return entry.greeting;
+    }
+
+    private User pooled(String id, String message, String name, long version) {
+        if (values == null) {
+            return new User(id, message, name, version);
+        }
+        return new User(id, values.acquire(message), values.acquire(name), version);
+    }
+
+    private void release(Entry entry) {
+        // Entries never decoded hold no pooled values
+        if (entry.greeting != null) {
+            release(entry.greeting);
+        }
+    }
+
+    private void release(User greeting) {
+        if (values != null) {
+            values.release(greeting.getMessage());
+            values.release(greeting.getName());
+        }
+    }
+
+    static User copyOf(User greeting) {
+        return new User(greeting.getId(), greeting.getMessage(), greeting.getName(), greeting.getVersion());
+    }
+
+    // Strings are counted at a byte per character, as compact strings hold Latin-1 text
+    private static long bytesOf(User greeting) {
+        return ENTRY_OVERHEAD_BYTES + lengthOf(greeting.getId()) + lengthOf(greeting.getMessage()) + lengthOf(greeting.getName());
+    }
+
+    private static int lengthOf(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static long parseSeq(String id) {
+        try {
+            return id == null ? 0 : Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * One lock stripe of the store; every method expects the caller to hold its monitor.
+     */
+    private final class Partition {
+        // Insertion ordered, with an intrusive LRU list threaded through the entries
+        private final Map<String, Entry> greetings = new LinkedHashMap<>();
+        private final Entry lruHead = new Entry(null, null, null, 0, null);
+        private final TimingWheel<String> expiryWheel = new TimingWheel<>(TICK_MILLIS, clock.millis());
+        private final int maxEntries;
+        private final long maxBytes;
+        private long bytes;
+
+        private Partition(int maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+            lruHead.lruPrev = lruHead;
+            lruHead.lruNext = lruHead;
+        }
+
+        // Stores a greeting whose values were already taken from the pool
+        private void insert(User newGreeting, Duration ttl) {
+            String id = newGreeting.getId();
+            Entry entry = new Entry(id, newGreeting, null, 0, ttl);
+            entry.timeout = scheduleExpiry(id, ttl);
+            add(entry, bytesOf(newGreeting));
+            listeners.forEach(listener -> listener.onSaved(newGreeting));
+            evictOverflow();
+        }
+
+        private void add(Entry entry, long entryBytes) {
+            greetings.put(entry.id, entry);
+            byId.put(entry.seq, entry);
+            linkFirst(entry);
+            entry.bytes = entryBytes;
+            bytes += entryBytes;
+        }
+
+        /**
+         * Stores the name and message of changes, already taken from the pool, as the
+         * next version of the entry, keeping its id. The caller releases the values of
+         * the previous version.
+         */
+        private User replace(Entry entry, User changes) {
+            User previous = greetingOf(entry);
+            User updatedGreeting = new User(entry.id, changes.getMessage(), changes.getName(), previous.getVersion() + 1);
+            listeners.forEach(listener -> listener.onUpdated(previous, updatedGreeting));
+            entry.greeting = updatedGreeting;
+            bytes += bytesOf(updatedGreeting) - entry.bytes;
+            entry.bytes = bytesOf(updatedGreeting);
+            // An update counts as a write, so the entry gets a fresh time to live
+            expiryWheel.cancel(entry.timeout);
+            entry.timeout = scheduleExpiry(entry.id, entry.ttl);
+            return updatedGreeting;
+        }
+
+        private List<Entry> matching(GreetingFilter filter) {
+            List<Entry> matches = new ArrayList<>();
+            for (Entry entry : greetings.values()) {
+                if (matches(entry, filter)) {
+                    matches.add(entry);
+                }
+            }
+            return matches;
+        }
+
+        private boolean matches(Entry entry, GreetingFilter filter) {
+            return filter.matchesId(entry.seq) && (!filter.needsContent() || filter.matchesContent(greetingOf(entry)));
+        }
+
+        private TimingWheel.Timeout<String> scheduleExpiry(String id, Duration ttl) {
+            if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+                return null;
+            }
+            return expiryWheel.schedule(id, clock.millis() + ttl.toMillis());
+        }
+
+        private void expireEntries() {
+            expiryWheel.advance(clock.millis(), id -> {
+                Entry entry = greetings.remove(id);
+                if (entry != null) {
+                    byId.remove(entry.seq, entry);
+                    unlink(entry);
+                    bytes -= entry.bytes;
+                    notifyRemoved(entry);
+                    release(entry);
+                    expirations.incrementAndGet();
+                    log.debug("Expired greeting with id: {}", id);
+                }
+            });
+        }
+
+        // The newest greeting is always kept, even when it alone is over the byte capacity
+        private void evictOverflow() {
+            while (greetings.size() > 1
+                    && ((maxEntries > 0 && greetings.size() > maxEntries) || (maxBytes > 0 && bytes > maxBytes))) {
+                Entry eldest = lruHead.lruPrev;
+                String id = eldest.id;
+                release(removeEntry(id));
+                evictions.incrementAndGet();
+                log.debug("Evicted greeting with id: {}", id);
+            }
+        }
+
+        private Entry removeEntry(String id) {
+            Entry entry = greetings.remove(id);
+            if (entry != null) {
+                expiryWheel.cancel(entry.timeout);
+                byId.remove(entry.seq, entry);
+                unlink(entry);
+                bytes -= entry.bytes;
+                notifyRemoved(entry);
+            }
+            // The caller releases the entry's values, after the lock where it can
+            return entry;
+        }
+
+        private void notifyRemoved(Entry entry) {
+            if (!listeners.isEmpty()) {
+                User removed = greetingOf(entry);
+                listeners.forEach(listener -> listener.onRemoved(removed));
+            }
+        }
+
+        private void touch(Entry entry) {
+            unlink(entry);
+            linkFirst(entry);
+        }
+
+        private void linkFirst(Entry entry) {
+            entry.lruPrev = lruHead;
+            entry.lruNext = lruHead.lruNext;
+            lruHead.lruNext.lruPrev = entry;
+            lruHead.lruNext = entry;
+        }
+
+        private void unlink(Entry entry) {
+            if (entry.lruPrev != null) {
+                entry.lruPrev.lruNext = entry.lruNext;
+                entry.lruNext.lruPrev = entry.lruPrev;
+                entry.lruPrev = null;
+                entry.lruNext = null;
+            }
         }
     }
 }
\ No newline at end of file
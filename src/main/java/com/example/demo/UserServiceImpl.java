@@ -2,38 +2,49 @@ package com.example.demo;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class UserServiceImpl implements UserService {
 
-    private final List<User> greetings = new ArrayList<>();
+    private final UserDAO userDAO;
+    // Concurrent identical reads share one store access
+    private final SingleFlight<String, List<User>> allGreetingsReads = new SingleFlight<>();
+    private final SingleFlight<String, Optional<User>> greetingReads = new SingleFlight<>();
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
 
+    public UserServiceImpl() {
+        this(new UserDaoImpl());
+    }
+
+    @Autowired
+    public UserServiceImpl(UserDAO userDAO) {
+        this.userDAO = userDAO;
+    }
+
     @Override
     public List<User> getAllGreetings() {
         log.info("Retrieving all greetings");
-        return new ArrayList<>(greetings);
+        // Callers share one read, so each gets its own copies of the greetings
+        return allGreetingsReads.execute("all", userDAO::findAll).stream().map(UserDaoImpl::copyOf).toList();
     }
 
     @Override
     public Optional<User> getGreetingById(String id) {
         log.info("Retrieving greeting with id: {}", id);
-        return greetings.stream().filter(g -> g.getId().equals(id)).findFirst();
+        return greetingReads.execute(id, () -> userDAO.findById(id)).map(UserDaoImpl::copyOf);
     }
 
     @Override
     public User createGreeting(UserRequest request) {
         validateRequest(request);
 
-        String id = String.valueOf(greetings.size() + 1);
-        User greeting = new User(id, String.format("Hello %s! Your message: %s", request.getName(), request.getMessage()));
+        User greeting = userDAO.save(new User(null, String.format("Hello %s! Your message: %s", request.getName(), request.getMessage())));
 
-        log.info("Creating new greeting with id: {}", id);
-        greetings.add(greeting);
+        log.info("Created new greeting with id: {}", greeting.getId());
         return greeting;
     }
 
@@ -41,30 +52,41 @@ public class UserServiceImpl implements UserService {
     public Optional<User> updateGreeting(String id, UserRequest request) {
         validateRequest(request);
 
-        Optional<User> existingGreeting = getGreetingById(id);
-        if (existingGreeting.isEmpty()) {
+        User updatedGreeting = new User(id, String.format("Hello %s! Your updated message: %s", request.getName(), request.getMessage()));
+
+        Optional<User> result = userDAO.update(id, updatedGreeting);
+        if (result.isEmpty()) {
             log.warn("Attempted to update non-existent greeting with id: {}", id);
             return Optional.empty();
         }
 
-        int index = greetings.indexOf(existingGreeting.get());
-        User updatedGreeting = new User(id, String.format("Hello %s! Your updated message: %s", request.getName(), request.getMessage()));
-
-        log.info("Updating greeting with id: {}", id);
-        greetings.set(index, updatedGreeting);
-        return Optional.of(updatedGreeting);
+        log.info("Updated greeting with id: {}", id);
+        return result;
     }
 
     @Override
     public boolean deleteGreeting(String id) {
-        Optional<User> greeting = getGreetingById(id);
-        if (greeting.isEmpty()) {
+        if (!userDAO.delete(id)) {
             log.warn("Attempted to delete non-existent greeting with id: {}", id);
             return false;
         }
 
-        log.info("Deleting greeting with id: {}", id);
-        return greetings.remove(greeting.get());
+        log.info("Deleted greeting with id: {}", id);
+        return true;
+    }
+
+    /**
+     * Reads that ran against the store.
+     */
+    public long getExecutedReadCount() {
+        return allGreetingsReads.getExecutions() + greetingReads.getExecutions();
+    }
+
+    /**
+     * Reads answered with the result of an identical read already in flight.
+     */
+    public long getCoalescedReadCount() {
+        return allGreetingsReads.getCoalesced() + greetingReads.getCoalesced();
     }
 
     private void validateRequest(UserRequest request) {
@@ -0,0 +1,27 @@
+package com.example.demo;
+
+/**
+ * Thrown by a compare-and-set update when the greeting was changed since the
+ * caller read it.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final long currentVersion;
+
+    public VersionConflictException(String id, long expectedVersion, long currentVersion) {
+        super("Greeting " + id + " is at version " + currentVersion + ", expected " + expectedVersion);
+        this.id = id;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
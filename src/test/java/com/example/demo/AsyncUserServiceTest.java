@@ -0,0 +1,134 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncUserServiceTest {
+
+    private AsyncUserServiceImpl asyncUserService;
+
+    @AfterEach
+    void tearDown() {
+        asyncUserService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test calls run on the service pool and complete with the result")
+    void testRunsOnPool() throws Exception {
+        // Given
+        String[] threadName = new String[1];
+        UserService userService = new UserServiceImpl() {
+            @Override
+            public List<User> getAllGreetings() {
+                threadName[0] = Thread.currentThread().getName();
+                return super.getAllGreetings();
+            }
+        };
+        asyncUserService = new AsyncUserServiceImpl(userService, 2, 10);
+
+        // When
+        User created = asyncUserService.createGreeting(new UserRequest("John", "Hi")).get(5, TimeUnit.SECONDS);
+        List<User> greetings = asyncUserService.getAllGreetings().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(List.of(created), greetings);
+        assertTrue(threadName[0].startsWith("greeting-service-"));
+    }
+
+    @Test
+    @DisplayName("Test validation failures complete the future exceptionally")
+    void testValidationFailure() {
+        // Given
+        asyncUserService = new AsyncUserServiceImpl(new UserServiceImpl(), 1, 10);
+
+        // When
+        CompletableFuture<User> result = asyncUserService.createGreeting(new UserRequest("", "Hi"));
+
+        // Then
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("Test calls are rejected once the pool and queue are full")
+    void testRejectsWhenSaturated() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        UserService userService = new UserServiceImpl() {
+            @Override
+            public boolean deleteGreeting(String id) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            }
+        };
+        asyncUserService = new AsyncUserServiceImpl(userService, 1, 1);
+        CompletableFuture<Boolean> running = asyncUserService.deleteGreeting("1");
+        CompletableFuture<Boolean> queued = asyncUserService.deleteGreeting("2");
+
+        // When
+        CompletableFuture<Boolean> rejected = asyncUserService.deleteGreeting("3");
+
+        // Then
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        release.countDown();
+        assertFalse(running.get(5, TimeUnit.SECONDS));
+        assertFalse(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Test coalesced reads hand every caller its own greeting")
+    void testCoalescedReadsAreCopies() throws Exception {
+        // Given
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UserDaoImpl store = new UserDaoImpl() {
+            @Override
+            public Optional<User> findById(String id) {
+                reading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findById(id);
+            }
+        };
+        String id = store.save(new User(null, "Hello", "John")).getId();
+        UserServiceImpl userService = new UserServiceImpl(store);
+        asyncUserService = new AsyncUserServiceImpl(userService, 2, 10);
+
+        // When
+        CompletableFuture<Optional<User>> first = asyncUserService.getGreetingById(id);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Optional<User>> second = asyncUserService.getGreetingById(id);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (userService.getCoalescedReadCount() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        User firstGreeting = first.get(5, TimeUnit.SECONDS).orElseThrow();
+        firstGreeting.setName("Jane");
+        User secondGreeting = second.get(5, TimeUnit.SECONDS).orElseThrow();
+
+        // Then
+        assertEquals(1, userService.getCoalescedReadCount());
+        assertNotSame(firstGreeting, secondGreeting);
+        assertEquals("John", secondGreeting.getName());
+    }
+}
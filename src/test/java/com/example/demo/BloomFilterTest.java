@@ -0,0 +1,47 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    @DisplayName("Test every added key is reported as maybe present")
+    void testNoFalseNegatives() {
+        // Given
+        BloomFilter bloom = new BloomFilter(10_000);
+
+        // When
+        for (long key = 1; key <= 10_000; key++) {
+            bloom.add(key);
+        }
+
+        // Then
+        for (long key = 1; key <= 10_000; key++) {
+            assertTrue(bloom.mightContain(key), "Key " + key + " was added");
+        }
+    }
+
+    @Test
+    @DisplayName("Test few absent keys are reported as maybe present")
+    void testFalsePositiveRate() {
+        // Given
+        BloomFilter bloom = new BloomFilter(10_000);
+        for (long key = 1; key <= 10_000; key++) {
+            bloom.add(key);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (long key = 10_001; key <= 110_000; key++) {
+            if (bloom.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+
+        // Then: about 1% is expected at 10 bits per key
+        assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedGreetingDaoTest {
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+    }
+
+    @Test
+    @DisplayName("Test least recently used greeting is evicted at capacity")
+    void testEvictsLeastRecentlyUsed() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl(2, Duration.ZERO, clock);
+        User first = userDAO.save(new User(null, "First", "First Name"));
+        User second = userDAO.save(new User(null, "Second", "Second Name"));
+        userDAO.findById(first.getId());
+
+        // When
+        User third = userDAO.save(new User(null, "Third", "Third Name"));
+
+        // Then
+        assertTrue(userDAO.exists(first.getId()));
+        assertFalse(userDAO.exists(second.getId()));
+        assertTrue(userDAO.exists(third.getId()));
+        assertEquals(1, userDAO.getEvictionCount());
+        assertEquals(2, userDAO.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Test greeting expires after the default ttl")
+    void testExpiresAfterDefaultTtl() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl(0, Duration.ofSeconds(30), clock);
+        User saved = userDAO.save(new User(null, "Test message", "Test Name"));
+
+        // When
+        clock.advance(Duration.ofSeconds(29));
+        boolean beforeTtl = userDAO.exists(saved.getId());
+        clock.advance(Duration.ofSeconds(2));
+
+        // Then
+        assertTrue(beforeTtl);
+        assertFalse(userDAO.exists(saved.getId()));
+        assertEquals(1, userDAO.getExpirationCount());
+    }
+
+    @Test
+    @DisplayName("Test per-greeting ttl overrides the default")
+    void testPerGreetingTtl() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl(0, Duration.ofHours(1), clock);
+        User shortLived = userDAO.save(new User(null, "Short", "Short Name"), Duration.ofSeconds(5));
+        User longLived = userDAO.save(new User(null, "Long", "Long Name"));
+
+        // When
+        clock.advance(Duration.ofMinutes(10));
+
+        // Then
+        assertFalse(userDAO.exists(shortLived.getId()));
+        assertTrue(userDAO.exists(longLived.getId()));
+
+        // When
+        clock.advance(Duration.ofHours(2));
+
+        // Then
+        assertFalse(userDAO.exists(longLived.getId()));
+        assertEquals(2, userDAO.getExpirationCount());
+    }
+
+    @Test
+    @DisplayName("Test update restarts the ttl")
+    void testUpdateRestartsTtl() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl(0, Duration.ofSeconds(10), clock);
+        User saved = userDAO.save(new User(null, "Original", "Name"));
+
+        // When
+        clock.advance(Duration.ofSeconds(8));
+        userDAO.update(saved.getId(), new User(saved.getId(), "Updated", "Name"));
+        clock.advance(Duration.ofSeconds(8));
+
+        // Then
+        assertTrue(userDAO.exists(saved.getId()));
+        clock.advance(Duration.ofSeconds(3));
+        assertFalse(userDAO.exists(saved.getId()));
+    }
+
+    @Test
+    @DisplayName("Test deleted greeting is not counted as expired")
+    void testDeleteCancelsExpiry() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl(0, Duration.ofSeconds(1), clock);
+        User saved = userDAO.save(new User(null, "Test message", "Test Name"));
+
+        // When
+        userDAO.delete(saved.getId());
+        clock.advance(Duration.ofSeconds(5));
+
+        // Then
+        assertTrue(userDAO.findAll().isEmpty());
+        assertEquals(0, userDAO.getExpirationCount());
+    }
+
+    @Test
+    @DisplayName("Test least recently used greetings are evicted over the byte capacity")
+    void testEvictsOverByteCapacity() {
+        // Given: room for four greetings of about 240 bytes each
+        UserDaoImpl userDAO = new UserDaoImpl(0, 1_000, Duration.ZERO, clock, true);
+        List<User> saved = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            saved.add(userDAO.save(new User(null, "Message " + "x".repeat(100), "Name " + i)));
+        }
+        userDAO.findById(saved.get(0).getId());
+
+        // When
+        User newest = userDAO.save(new User(null, "Message " + "x".repeat(100), "Name 4"));
+
+        // Then
+        assertTrue(userDAO.exists(saved.get(0).getId()));
+        assertFalse(userDAO.exists(saved.get(1).getId()));
+        assertTrue(userDAO.exists(newest.getId()));
+        assertEquals(1, userDAO.getEvictionCount());
+        assertTrue(userDAO.getEstimatedBytes() <= 1_000);
+    }
+
+    @Test
+    @DisplayName("Test greetings still expire after the store sat idle for a long time")
+    void testExpiresAfterLongIdleGap() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl(0, Duration.ofDays(2), clock);
+        User early = userDAO.save(new User(null, "Early", "Early Name"), Duration.ofMinutes(1));
+        User late = userDAO.save(new User(null, "Late", "Late Name"));
+
+        // When
+        clock.advance(Duration.ofDays(1));
+        boolean lateAfterOneDay = userDAO.exists(late.getId());
+        clock.advance(Duration.ofDays(1).plusSeconds(1));
+
+        // Then
+        assertFalse(userDAO.exists(early.getId()));
+        assertTrue(lateAfterOneDay);
+        assertFalse(userDAO.exists(late.getId()));
+        assertEquals(2, userDAO.getExpirationCount());
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkGreetingDaoTest {
+
+    private UserDaoImpl userDAO;
+
+    @BeforeEach
+    void setUp() {
+        userDAO = new UserDaoImpl();
+    }
+
+    @Test
+    @DisplayName("Test delete by name prefix removes only matching greetings")
+    void testDeleteWhereNamePrefix() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            userDAO.save(new User(null, "Hello " + i, i % 2 == 0 ? "John " + i : "Jane " + i));
+        }
+
+        // When
+        int deleted = userDAO.deleteWhere(new GreetingFilter("John", null, null, null));
+
+        // Then
+        assertEquals(50, deleted);
+        assertEquals(50, userDAO.size());
+        assertTrue(userDAO.findAll().stream().allMatch(greeting -> greeting.getName().startsWith("Jane")));
+    }
+
+    @Test
+    @DisplayName("Test update by id range keeps ids and replaces content")
+    void testUpdateWhereIdRange() {
+        // Given
+        List<User> saved = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            saved.add(userDAO.save(new User(null, "Hello", "John")));
+        }
+        long from = Long.parseLong(saved.get(5).getId());
+        long to = Long.parseLong(saved.get(14).getId());
+
+        // When
+        int updated = userDAO.updateWhere(new GreetingFilter(null, null, from, to),
+                greeting -> new User(null, "Updated", greeting.getName()));
+
+        // Then
+        assertEquals(10, updated);
+        for (int i = 0; i < saved.size(); i++) {
+            User greeting = userDAO.findById(saved.get(i).getId()).orElseThrow();
+            assertEquals(i >= 5 && i <= 14 ? "Updated" : "Hello", greeting.getMessage());
+            assertEquals("John", greeting.getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Test every criterion of a filter must match")
+    void testCombinedCriteria() {
+        // Given
+        userDAO.save(new User(null, "Good morning", "John"));
+        userDAO.save(new User(null, "Good night", "John"));
+        userDAO.save(new User(null, "Good morning", "Jane"));
+
+        // When
+        int deleted = userDAO.deleteWhere(new GreetingFilter("Jo", "morning", null, null));
+
+        // Then
+        assertEquals(1, deleted);
+        assertEquals(2, userDAO.size());
+    }
+
+    @Test
+    @DisplayName("Test bulk changes notify listeners")
+    void testBulkChangesNotifyListeners() {
+        // Given
+        GreetingAnalytics analytics = new GreetingAnalytics(10);
+        userDAO.addListener(analytics);
+        for (int i = 0; i < 10; i++) {
+            userDAO.save(new User(null, "Hello", "John"));
+        }
+
+        // When
+        userDAO.updateWhere(new GreetingFilter(null, "Hello", null, null), greeting -> new User(null, "Hi", "Jane"));
+
+        // Then
+        assertEquals(0, analytics.countForName("John"));
+        assertEquals(10, analytics.countForName("Jane"));
+    }
+
+    @Test
+    @DisplayName("Test a filter without criteria is rejected")
+    void testFilterRequiresCriterion() {
+        assertThrows(IllegalArgumentException.class, () -> new GreetingFilter(null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> new GreetingFilter(null, null, 10L, 5L));
+    }
+
+    @Test
+    @DisplayName("Test bounded stores split their capacity across partitions")
+    void testBoundedPartitioning() {
+        // Given
+        UserDaoImpl bounded = new UserDaoImpl(1000, Duration.ZERO);
+
+        // When
+        for (int i = 0; i < 5000; i++) {
+            bounded.save(new User(null, "Hello", "John"));
+        }
+
+        // Then
+        assertTrue(bounded.partitionCount() > 1);
+        assertEquals(1000, bounded.size());
+        assertEquals(4000, bounded.getEvictionCount());
+    }
+
+    @Test
+    @DisplayName("Test pages walk the greetings in id order and skip deleted ids")
+    void testFindPage() {
+        // Given
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ids.add(userDAO.save(new User(null, "Hello " + i, "John")).getId());
+        }
+        for (int i = 0; i < 300; i += 3) {
+            userDAO.delete(ids.get(i));
+        }
+
+        // When
+        List<String> walked = new ArrayList<>();
+        List<User> page = userDAO.findPage(0, 7);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= 7);
+            page.forEach(greeting -> walked.add(greeting.getId()));
+            page = userDAO.findPage(Long.parseLong(walked.get(walked.size() - 1)), 7);
+        }
+
+        // Then
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            if (i % 3 != 0) {
+                expected.add(ids.get(i));
+            }
+        }
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    @DisplayName("Test forEach does not hold partition locks while the action runs")
+    void testForEachReleasesLocks() throws Exception {
+        // Given
+        String id = userDAO.save(new User(null, "Hello", "John")).getId();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+
+        try {
+            // When: another thread updates the greeting being visited
+            List<Boolean> updated = new ArrayList<>();
+            userDAO.forEach(greeting -> {
+                Future<Boolean> update = writer.submit(() -> userDAO.update(id, new User(null, "Changed", "John")).isPresent());
+                try {
+                    updated.add(update.get(5, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            // Then
+            assertEquals(List.of(true), updated);
+            assertEquals("Changed", userDAO.findById(id).orElseThrow().getMessage());
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test updateWhere runs the update outside the store locks, retries greetings changed meanwhile and releases discarded values")
+    void testUpdateWhereRetriesConcurrentChange() throws Exception {
+        // Given
+        String id = userDAO.save(new User(null, "Hello", "John")).getId();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+
+        try {
+            // When: the first call of the update lets another thread change the greeting
+            List<String> seen = new ArrayList<>();
+            int updated = userDAO.updateWhere(new GreetingFilter("John", null, null, null), greeting -> {
+                seen.add(greeting.getMessage());
+                if (seen.size() == 1) {
+                    Future<?> update = writer.submit(() -> userDAO.update(id, new User(null, "Changed", "John")));
+                    try {
+                        update.get(5, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return new User(null, greeting.getMessage() + "!", greeting.getName());
+            });
+
+            // Then
+            assertEquals(1, updated);
+            assertEquals(List.of("Hello", "Changed"), seen);
+            User stored = userDAO.findById(id).orElseThrow();
+            assertEquals("Changed!", stored.getMessage());
+            assertEquals(3, stored.getVersion());
+            // The discarded "Hello!" went back to the pool
+            assertEquals(2, userDAO.getDistinctValueCount());
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+}
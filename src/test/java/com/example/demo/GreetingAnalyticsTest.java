@@ -0,0 +1,131 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GreetingAnalyticsTest {
+
+    private MutableClock clock;
+    private UserDaoImpl userDAO;
+    private GreetingAnalytics analytics;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        userDAO = new UserDaoImpl(0, Duration.ZERO, clock);
+        analytics = new GreetingAnalytics(100);
+        userDAO.addListener(analytics);
+    }
+
+    @Test
+    @DisplayName("Test counts follow creates, updates and deletes")
+    void testCountsFollowChanges() {
+        // Given
+        User first = userDAO.save(new User(null, "First", "John"));
+        userDAO.save(new User(null, "Second", "John"));
+        userDAO.save(new User(null, "Third", "Jane"));
+
+        // When
+        userDAO.update(first.getId(), new User(first.getId(), "Renamed", "Jane"));
+        userDAO.delete("2");
+
+        // Then
+        assertEquals(0, analytics.countForName("John"));
+        assertEquals(2, analytics.countForName("Jane"));
+        GreetingAnalytics.Totals totals = analytics.totals();
+        assertEquals(2, totals.greetings());
+        assertEquals(1, totals.distinctNames());
+        assertEquals(3, totals.creates());
+        assertEquals(1, totals.updates());
+        assertEquals(1, totals.removals());
+    }
+
+    @Test
+    @DisplayName("Test expired greetings are no longer counted")
+    void testExpiryIsCounted() {
+        // Given
+        userDAO.save(new User(null, "Short", "John"), Duration.ofSeconds(1));
+        userDAO.save(new User(null, "Long", "John"));
+
+        // When
+        clock.advance(Duration.ofSeconds(5));
+        userDAO.exists("1");
+
+        // Then
+        assertEquals(1, analytics.countForName("John"));
+    }
+
+    @Test
+    @DisplayName("Test most active names come first")
+    void testMostActiveNames() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            userDAO.save(new User(null, "Message " + i, "John"));
+        }
+        for (int i = 0; i < 3; i++) {
+            userDAO.save(new User(null, "Message " + i, "Jane"));
+        }
+        userDAO.save(new User(null, "Message", "Bob"));
+
+        // When
+        List<HeavyHitters.Estimate> top = analytics.mostActiveNames(2);
+
+        // Then
+        assertEquals(2, top.size());
+        assertEquals("John", top.get(0).key());
+        assertEquals(5, top.get(0).count());
+        assertEquals("Jane", top.get(1).key());
+    }
+
+    @Test
+    @DisplayName("Test restored greetings are counted")
+    void testRestoreIsCounted(@TempDir Path dir) throws Exception {
+        // Given
+        userDAO.save(new User(null, "First", "John"));
+        userDAO.save(new User(null, "Second", "John"));
+        Path file = dir.resolve("greetings.snapshot");
+        userDAO.writeSnapshot(file);
+        UserDaoImpl restored = new UserDaoImpl();
+        GreetingAnalytics restoredAnalytics = new GreetingAnalytics(100);
+        restored.addListener(restoredAnalytics);
+
+        // When
+        restored.restore(GreetingSnapshot.open(file));
+
+        // Then
+        assertEquals(2, restoredAnalytics.countForName("John"));
+        assertEquals(2, restoredAnalytics.totals().greetings());
+    }
+
+    @Test
+    @DisplayName("Test restored greetings changed before the first query are counted once")
+    void testRestoreCountedLazily(@TempDir Path dir) throws Exception {
+        // Given
+        userDAO.save(new User(null, "First", "John"));
+        userDAO.save(new User(null, "Second", "John"));
+        Path file = dir.resolve("greetings.snapshot");
+        userDAO.writeSnapshot(file);
+        UserDaoImpl restored = new UserDaoImpl();
+        GreetingAnalytics restoredAnalytics = new GreetingAnalytics(100);
+        restored.addListener(restoredAnalytics);
+        restored.restore(GreetingSnapshot.open(file));
+
+        // When
+        restored.delete("1");
+        restored.update("2", new User("2", "Second", "Jane"));
+
+        // Then
+        assertEquals(0, restoredAnalytics.countForName("John"));
+        assertEquals(1, restoredAnalytics.countForName("Jane"));
+        assertEquals(1, restoredAnalytics.totals().greetings());
+        assertEquals(1, restoredAnalytics.totals().distinctNames());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GreetingChangeLogTest {
+
+    private UserDaoImpl userDAO;
+    private GreetingChangeLog changeLog;
+
+    @BeforeEach
+    void setUp() {
+        userDAO = new UserDaoImpl();
+        changeLog = new GreetingChangeLog(3);
+        userDAO.addListener(changeLog);
+    }
+
+    @Test
+    @DisplayName("Test only the latest change of each greeting is kept in sequence order")
+    void testLatestChangePerGreeting() {
+        // Given
+        String first = userDAO.save(new User(null, "Hi", "John")).getId();
+        String second = userDAO.save(new User(null, "Hey", "Jane")).getId();
+        userDAO.update(first, new User(null, "Hello", "John"));
+        userDAO.delete(second);
+
+        // When
+        GreetingChangeLog.Page page = changeLog.changesSince(0, 10);
+
+        // Then
+        assertEquals(List.of(new GreetingChangeLog.Change(3, first, false), new GreetingChangeLog.Change(4, second, true)),
+                page.changes());
+        assertEquals(4, page.next());
+        assertFalse(page.hasMore());
+        assertEquals(2, changeLog.size());
+    }
+
+    @Test
+    @DisplayName("Test pages are bounded and continue where the last one stopped")
+    void testPaging() {
+        // Given
+        for (int i = 0; i < 25; i++) {
+            userDAO.save(new User(null, "Hello " + i, "John"));
+        }
+
+        // When
+        List<GreetingChangeLog.Change> seen = new ArrayList<>();
+        long since = 0;
+        int pages = 0;
+        GreetingChangeLog.Page page;
+        do {
+            page = changeLog.changesSince(since, 10);
+            seen.addAll(page.changes());
+            since = page.next();
+            pages++;
+        } while (page.hasMore());
+
+        // Then
+        assertEquals(3, pages);
+        assertEquals(25, seen.size());
+        assertEquals(25, since);
+        assertTrue(changeLog.changesSince(since, 10).changes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test readers from before a dropped tombstone must resync")
+    void testDroppedTombstones() {
+        // Given
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(userDAO.save(new User(null, "Hello " + i, "John")).getId());
+        }
+        long beforeDeletes = changeLog.getSequence();
+        for (String id : ids) {
+            userDAO.delete(id);
+        }
+
+        // When
+        ExpiredChangesException e = assertThrows(ExpiredChangesException.class, () -> changeLog.changesSince(beforeDeletes, 10));
+        GreetingChangeLog.Page recent = changeLog.changesSince(changeLog.getHorizon(), 10);
+
+        // Then
+        assertEquals(beforeDeletes + 2, e.getHorizon());
+        assertEquals(3, changeLog.getTombstoneCount());
+        assertEquals(3, recent.changes().size());
+        assertTrue(recent.changes().stream().allMatch(GreetingChangeLog.Change::deleted));
+    }
+
+    @Test
+    @DisplayName("Test a reader following concurrent writers never skips a change")
+    void testConcurrentWriters() throws Exception {
+        // Given
+        int writers = 4;
+        int perWriter = 5_000;
+        CountDownLatch done = new CountDownLatch(writers);
+        for (int w = 0; w < writers; w++) {
+            new Thread(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    userDAO.save(new User(null, "Hello " + i, "John"));
+                }
+                done.countDown();
+            }).start();
+        }
+
+        // When
+        Set<String> seen = new HashSet<>();
+        long since = 0;
+        while (done.getCount() > 0 || since < changeLog.getSequence()) {
+            GreetingChangeLog.Page page = changeLog.changesSince(since, 100);
+            page.changes().forEach(change -> seen.add(change.id()));
+            since = page.next();
+        }
+
+        // Then
+        assertEquals(writers * perWriter, seen.size());
+        assertEquals(writers * perWriter, changeLog.getSequence());
+    }
+
+    @Test
+    @DisplayName("Test a sequence beyond the current one is rejected")
+    void testUnknownSequence() {
+        // Given
+        userDAO.save(new User(null, "Hi", "John"));
+
+        // When / Then
+        assertThrows(ExpiredChangesException.class, () -> changeLog.changesSince(5, 10));
+        assertThrows(IllegalArgumentException.class, () -> changeLog.changesSince(-1, 10));
+    }
+
+    @Test
+    @DisplayName("Test changes are numbered after the restored greetings")
+    void testRestoreSetsBaseline() {
+        // Given
+        GreetingChangeLog restoredLog = new GreetingChangeLog(3);
+
+        // When
+        restoredLog.onRestored(1_000, names -> fail("Names are not needed"));
+        UserDaoImpl restored = new UserDaoImpl();
+        restored.addListener(restoredLog);
+        restored.save(new User(null, "Hi", "John"));
+
+        // Then
+        assertEquals(1_000, restoredLog.getBaseline());
+        assertEquals(1_001, restoredLog.getSequence());
+        assertEquals(1, restoredLog.changesSince(1_000, 10).changes().size());
+        assertThrows(IllegalStateException.class, () -> restoredLog.onRestored(2_000, names -> { }));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class GreetingChangesControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private GreetingChangeLog changeLog;
+
+    @Test
+    @DisplayName("Test changes since a sequence return current greetings and tombstones")
+    void testChangesSince() throws Exception {
+        // Given
+        long since = changeLog.getSequence();
+        String kept = userDAO.save(new User(null, "Hi", "John")).getId();
+        String deleted = userDAO.save(new User(null, "Hey", "Jane")).getId();
+        userDAO.update(kept, new User(null, "Hello", "John"));
+        userDAO.delete(deleted);
+
+        // When / Then
+        mockMvc.perform(get("/hello/changes").param("since", String.valueOf(since)).param("epoch", changeLog.getEpoch()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.epoch").value(changeLog.getEpoch()))
+                .andExpect(jsonPath("$.next").value(since + 4))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.changes.length()").value(2))
+                .andExpect(jsonPath("$.changes[0].id").value(kept))
+                .andExpect(jsonPath("$.changes[0].greeting.message").value("Hello"))
+                .andExpect(jsonPath("$.changes[0].greeting.version").value(2))
+                .andExpect(jsonPath("$.changes[1].id").value(deleted))
+                .andExpect(jsonPath("$.changes[1].deleted").value(true));
+    }
+
+    @Test
+    @DisplayName("Test a page stops at its limit")
+    void testLimit() throws Exception {
+        // Given
+        long since = changeLog.getSequence();
+        for (int i = 0; i < 3; i++) {
+            userDAO.save(new User(null, "Hello " + i, "John"));
+        }
+
+        // When / Then
+        mockMvc.perform(get("/hello/changes").param("since", String.valueOf(since)).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(2))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andExpect(jsonPath("$.next").value(since + 2));
+    }
+
+    @Test
+    @DisplayName("Test a cursor from another epoch is answered with 410")
+    void testOtherEpoch() throws Exception {
+        // When / Then
+        mockMvc.perform(get("/hello/changes").param("since", "0").param("epoch", "previous-process"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.epoch").value(changeLog.getEpoch()));
+    }
+
+    @Test
+    @DisplayName("Test an invalid cursor or limit is answered with 400")
+    void testInvalidRequest() throws Exception {
+        // When / Then
+        mockMvc.perform(get("/hello/changes").param("since", "0").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/hello/changes").param("since", "0").param("limit", String.valueOf(GreetingChangesController.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/hello/changes").param("since", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test restored greetings are read from the store before the changes after them")
+    void testRestoredBaseline(@TempDir Path dir) throws Exception {
+        // Given
+        UserDaoImpl original = new UserDaoImpl();
+        for (int i = 0; i < 3; i++) {
+            original.save(new User(null, "Hello " + i, "John"));
+        }
+        Path file = dir.resolve("greetings.snapshot");
+        original.writeSnapshot(file);
+        UserDaoImpl restored = new UserDaoImpl();
+        GreetingChangeLog restoredLog = new GreetingChangeLog(10);
+        restored.addListener(restoredLog);
+        restored.restore(GreetingSnapshot.open(file));
+        restored.delete("2");
+        String added = restored.save(new User(null, "Hi", "Jane")).getId();
+        GreetingChangesController controller = new GreetingChangesController(restoredLog, restored);
+
+        // When
+        GreetingChangesController.ChangesPage baseline = controller.getChanges(0, null, 1);
+        GreetingChangesController.ChangesPage rest = controller.getChanges(baseline.next(), null, 10);
+        GreetingChangesController.ChangesPage changes = controller.getChanges(rest.next(), null, 10);
+
+        // Then
+        assertEquals(3, restoredLog.getBaseline());
+        assertEquals(List.of("1"), baseline.changes().stream().map(GreetingChangesController.ChangedGreeting::id).toList());
+        assertEquals(1, baseline.next());
+        assertTrue(baseline.hasMore());
+        assertEquals(List.of("3"), rest.changes().stream().map(GreetingChangesController.ChangedGreeting::id).toList());
+        assertEquals(3, rest.next());
+        assertTrue(rest.hasMore());
+        assertEquals(List.of("2", added), changes.changes().stream().map(GreetingChangesController.ChangedGreeting::id).toList());
+        assertTrue(changes.changes().get(0).deleted());
+        assertFalse(changes.hasMore());
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.demo;
+
+import com.example.demo.grpc.CreateGreetingRequest;
+import com.example.demo.grpc.CreateGreetingsResponse;
+import com.example.demo.grpc.GetGreetingRequest;
+import com.example.demo.grpc.GreetingServiceGrpc;
+import com.example.demo.grpc.ListGreetingsRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the gRPC service with the equivalent REST calls on localhost and logs
+ * the timings. Only runs with {@code -Dbenchmark.enabled=true}; raise the size with
+ * {@code -Dbenchmark.greetings}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "greetings.grpc.port=0")
+@EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+public class GreetingGrpcBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GreetingGrpcBenchmarkTest.class);
+    private static final int GREETINGS = Integer.getInteger("benchmark.greetings", 500);
+
+    @LocalServerPort
+    private int restPort;
+
+    @Autowired
+    private GreetingGrpcServer grpcServer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private HttpClient http;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        channel = Grpc.newChannelBuilderForAddress("localhost", grpcServer.getPort(), InsecureChannelCredentials.create()).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Test gRPC and REST are benchmarked on the same store")
+    void testBenchmark() throws Exception {
+        GreetingServiceGrpc.GreetingServiceBlockingStub blockingStub = GreetingServiceGrpc.newBlockingStub(channel);
+        // Untimed round of each so neither side is measured with cold code or unopened connections
+        createOverRest(50);
+        createOverGrpc(50);
+
+        long restCreate = time(() -> createOverRest(GREETINGS));
+        CreateGreetingsResponse[] created = new CreateGreetingsResponse[1];
+        long grpcCreate = time(() -> created[0] = createOverGrpc(GREETINGS));
+        // Nothing else writes during the benchmark, so the stream got consecutive ids
+        List<String> ids = LongStream.rangeClosed(Long.parseLong(created[0].getFirstId()), Long.parseLong(created[0].getLastId()))
+                .mapToObj(String::valueOf).toList();
+
+        int[] restListed = new int[1];
+        long restList = time(() -> restListed[0] = get("/hello/all").size());
+        int[] grpcListed = new int[1];
+        long grpcList = time(() -> blockingStub.listGreetings(ListGreetingsRequest.getDefaultInstance())
+                .forEachRemaining(greeting -> grpcListed[0]++));
+
+        long restGet = time(() -> {
+            for (String id : ids) {
+                assertEquals(1, get("/hello?ids=" + id).get("found").size());
+            }
+        });
+        long grpcGet = time(() -> {
+            for (String id : ids) {
+                blockingStub.getGreeting(GetGreetingRequest.newBuilder().setId(id).build());
+            }
+        });
+
+        assertEquals(GREETINGS, ids.size());
+        assertEquals(restListed[0], grpcListed[0]);
+        log.info(String.format("REST vs gRPC on localhost with %d greetings (ms):%n"
+                        + "  create  %8.1f  %8.1f  (one POST per greeting vs one client stream)%n"
+                        + "  list    %8.1f  %8.1f%n"
+                        + "  get     %8.1f  %8.1f  (one GET /hello?ids= or GetGreeting call per greeting)",
+                GREETINGS, restCreate / 1e6, grpcCreate / 1e6, restList / 1e6, grpcList / 1e6, restGet / 1e6, grpcGet / 1e6));
+    }
+
+    private void createOverRest(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + restPort + "/hello"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Name " + i + "\",\"message\":\"Hello " + i + "\"}"))
+                    .build();
+            assertEquals(200, http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+        }
+    }
+
+    private CreateGreetingsResponse createOverGrpc(int count) throws Exception {
+        CompletableFuture<CreateGreetingsResponse> result = new CompletableFuture<>();
+        StreamObserver<CreateGreetingRequest> requests = GreetingServiceGrpc.newStub(channel).createGreetings(new StreamObserver<>() {
+            @Override
+            public void onNext(CreateGreetingsResponse response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            requests.onNext(CreateGreetingRequest.newBuilder().setName("Name " + i).setMessage("Hello " + i).build());
+        }
+        requests.onCompleted();
+        return result.get(30, TimeUnit.SECONDS);
+    }
+
+    private JsonNode get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + restPort + path)).GET().build();
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return objectMapper.readTree(response.body());
+    }
+
+    private interface Timed {
+        void run() throws Exception;
+    }
+
+    private static long time(Timed action) throws Exception {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo;
+
+import com.example.demo.grpc.CreateGreetingRequest;
+import com.example.demo.grpc.CreateGreetingsResponse;
+import com.example.demo.grpc.DeleteGreetingRequest;
+import com.example.demo.grpc.GetGreetingRequest;
+import com.example.demo.grpc.Greeting;
+import com.example.demo.grpc.GreetingServiceGrpc;
+import com.example.demo.grpc.ListGreetingsRequest;
+import com.example.demo.grpc.UpdateGreetingRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GreetingGrpcServiceTest {
+
+    private UserDaoImpl userDAO;
+    private Server server;
+    private ManagedChannel channel;
+    private GreetingServiceGrpc.GreetingServiceBlockingStub blockingStub;
+    private GreetingServiceGrpc.GreetingServiceStub asyncStub;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userDAO = new UserDaoImpl();
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor()
+                .addService(new GreetingGrpcService(userDAO)).build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        blockingStub = GreetingServiceGrpc.newBlockingStub(channel);
+        asyncStub = GreetingServiceGrpc.newStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Test client streamed greetings are stored in batches")
+    void testCreateGreetings() throws Exception {
+        // Given
+        int count = GreetingGrpcService.CREATE_BATCH_SIZE * 2 + 7;
+
+        // When
+        CreateGreetingsResponse response = create(count, true);
+
+        // Then
+        assertEquals(count, response.getCreated());
+        assertEquals(1, response.getRejected());
+        assertEquals(count, Long.parseLong(response.getLastId()) - Long.parseLong(response.getFirstId()) + 1);
+        assertEquals(count, userDAO.size());
+    }
+
+    @Test
+    @DisplayName("Test list streams every greeting in id order")
+    void testListGreetings() throws Exception {
+        // Given
+        create(50, false);
+
+        // When
+        List<Greeting> listed = new ArrayList<>();
+        blockingStub.listGreetings(ListGreetingsRequest.getDefaultInstance()).forEachRemaining(listed::add);
+
+        // Then
+        assertEquals(50, listed.size());
+        assertEquals("Name 0", listed.get(0).getName());
+        assertEquals("Name 49", listed.get(49).getName());
+    }
+
+    @Test
+    @DisplayName("Test list streams a store larger than one page")
+    void testListGreetingsPaged() throws Exception {
+        // Given
+        CreateGreetingsResponse created = create(GreetingGrpcService.LIST_PAGE_SIZE * 2 + 1, false);
+        long firstId = Long.parseLong(created.getFirstId());
+        userDAO.delete(String.valueOf(firstId + GreetingGrpcService.LIST_PAGE_SIZE));
+
+        // When
+        List<Greeting> listed = new ArrayList<>();
+        blockingStub.listGreetings(ListGreetingsRequest.getDefaultInstance()).forEachRemaining(listed::add);
+
+        // Then
+        assertEquals(GreetingGrpcService.LIST_PAGE_SIZE * 2, listed.size());
+        assertEquals(created.getFirstId(), listed.get(0).getId());
+        assertEquals(created.getLastId(), listed.get(listed.size() - 1).getId());
+    }
+
+    @Test
+    @DisplayName("Test get, update and delete of one greeting")
+    void testSingleGreetingOperations() {
+        // Given
+        User saved = userDAO.save(new User(null, "Hello", "John"));
+
+        // When
+        Greeting found = blockingStub.getGreeting(GetGreetingRequest.newBuilder().setId(saved.getId()).build());
+        Greeting updated = blockingStub.updateGreeting(UpdateGreetingRequest.newBuilder()
+                .setId(saved.getId()).setName("John").setMessage("Hi").setExpectedVersion(1).build());
+        boolean deleted = blockingStub.deleteGreeting(DeleteGreetingRequest.newBuilder().setId(saved.getId()).build()).getDeleted();
+
+        // Then
+        assertEquals("Hello", found.getMessage());
+        assertEquals("Hi", updated.getMessage());
+        assertEquals(2, updated.getVersion());
+        assertTrue(deleted);
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                () -> blockingStub.getGreeting(GetGreetingRequest.newBuilder().setId(saved.getId()).build()));
+        assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+    }
+
+    @Test
+    @DisplayName("Test update at a stale version is aborted")
+    void testStaleUpdate() {
+        // Given
+        User saved = userDAO.save(new User(null, "Hello", "John"));
+        userDAO.update(saved.getId(), new User(null, "Changed", "John"));
+
+        // When
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> blockingStub.updateGreeting(
+                UpdateGreetingRequest.newBuilder().setId(saved.getId()).setName("John").setMessage("Lost").setExpectedVersion(1).build()));
+
+        // Then
+        assertEquals(Status.Code.ABORTED, e.getStatus().getCode());
+        assertEquals("Changed", userDAO.findById(saved.getId()).orElseThrow().getMessage());
+    }
+
+    private CreateGreetingsResponse create(int count, boolean withInvalid) throws Exception {
+        CompletableFuture<CreateGreetingsResponse> result = new CompletableFuture<>();
+        StreamObserver<CreateGreetingRequest> requests = asyncStub.createGreetings(new StreamObserver<>() {
+            @Override
+            public void onNext(CreateGreetingsResponse response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            requests.onNext(CreateGreetingRequest.newBuilder().setName("Name " + i).setMessage("Hello " + i).build());
+        }
+        if (withInvalid) {
+            requests.onNext(CreateGreetingRequest.newBuilder().setName("No message").build());
+        }
+        requests.onCompleted();
+        return result.get(5, TimeUnit.SECONDS);
+    }
+}
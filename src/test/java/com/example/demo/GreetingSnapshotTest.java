@@ -0,0 +1,188 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GreetingSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Test snapshot restores every greeting")
+    void testRoundTrip() throws IOException {
+        // Given
+        UserDaoImpl source = new UserDaoImpl();
+        source.save(new User(null, "First message", "First Name"));
+        source.save(new User(null, "Hello John! Your message: hi"));
+        source.save(new User(null, "Third message", "Thïrd Nâme"));
+        Path file = dir.resolve("greetings.snapshot");
+
+        // When
+        source.writeSnapshot(file);
+        UserDaoImpl restored = new UserDaoImpl();
+        int count = restored.restore(GreetingSnapshot.open(file));
+
+        // Then
+        assertEquals(3, count);
+        assertEquals(source.findAll(), restored.findAll());
+        assertNull(restored.findById("2").orElseThrow().getName());
+    }
+
+    @Test
+    @DisplayName("Test restored store continues the id sequence")
+    void testIdSequenceContinues() throws IOException {
+        // Given
+        UserDaoImpl source = new UserDaoImpl();
+        source.save(new User(null, "First", "First Name"));
+        source.save(new User(null, "Second", "Second Name"));
+        source.delete("2");
+        Path file = dir.resolve("greetings.snapshot");
+        source.writeSnapshot(file);
+
+        // When
+        UserDaoImpl restored = new UserDaoImpl();
+        restored.restore(GreetingSnapshot.open(file));
+        User next = restored.save(new User(null, "Third", "Third Name"));
+
+        // Then
+        assertEquals("3", next.getId());
+    }
+
+    @Test
+    @DisplayName("Test undecoded greetings are copied into the next snapshot")
+    void testSnapshotOfRestoredStore() throws IOException {
+        // Given
+        UserDaoImpl source = new UserDaoImpl();
+        for (int i = 0; i < 100; i++) {
+            source.save(new User(null, "Message " + i, "Name " + i));
+        }
+        Path first = dir.resolve("first.snapshot");
+        source.writeSnapshot(first);
+        UserDaoImpl restored = new UserDaoImpl();
+        restored.restore(GreetingSnapshot.open(first));
+        restored.update("5", new User("5", "Updated", "Name 5"));
+
+        // When
+        Path second = dir.resolve("second.snapshot");
+        restored.writeSnapshot(second);
+        UserDaoImpl reloaded = new UserDaoImpl();
+        reloaded.restore(GreetingSnapshot.open(second));
+
+        // Then
+        assertEquals(restored.findAll(), reloaded.findAll());
+        assertEquals("Updated", reloaded.findById("5").orElseThrow().getMessage());
+        assertFalse(Files.exists(dir.resolve("second.snapshot.tmp")));
+    }
+
+    @Test
+    @DisplayName("Test greeting versions survive a snapshot")
+    void testVersionsRestored() throws IOException {
+        // Given
+        UserDaoImpl source = new UserDaoImpl();
+        User greeting = source.save(new User(null, "First", "First Name"));
+        source.update(greeting.getId(), new User(null, "Second", "First Name"));
+        Path file = dir.resolve("greetings.snapshot");
+        source.writeSnapshot(file);
+
+        // When
+        UserDaoImpl restored = new UserDaoImpl();
+        restored.restore(GreetingSnapshot.open(file));
+
+        // Then
+        assertEquals(2, restored.findById(greeting.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("Test version 1 snapshots are read with every greeting at version 1")
+    void testReadsVersionOneSnapshot() throws IOException {
+        // Given
+        Path file = dir.resolve("greetings.snapshot");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x47524e53);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeLong(7);
+            writeString(out, "7");
+            out.writeInt(4 + 4 + 4 + 2);
+            writeString(out, "John");
+            writeString(out, "Hi");
+        }
+
+        // When
+        UserDaoImpl restored = new UserDaoImpl();
+        restored.restore(GreetingSnapshot.open(file));
+        Path rewritten = dir.resolve("rewritten.snapshot");
+        restored.writeSnapshot(rewritten);
+        UserDaoImpl reloaded = new UserDaoImpl();
+        reloaded.restore(GreetingSnapshot.open(rewritten));
+
+        // Then
+        assertEquals(new User("7", "Hi", "John"), reloaded.findById("7").orElseThrow());
+        assertEquals(1, reloaded.findById("7").orElseThrow().getVersion());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Test
+    @DisplayName("Test opening a file that is not a snapshot fails")
+    void testRejectsForeignFile() throws IOException {
+        // Given
+        Path file = dir.resolve("not-a-snapshot");
+        Files.writeString(file, "{\"name\":\"John\",\"message\":\"hi\"}\n");
+
+        // When & Then
+        assertThrows(IOException.class, () -> GreetingSnapshot.open(file));
+    }
+
+    @Test
+    @DisplayName("Test concurrent snapshots leave a readable file")
+    void testConcurrentSnapshots() throws Exception {
+        // Given
+        UserDaoImpl source = new UserDaoImpl();
+        for (int i = 0; i < 2_000; i++) {
+            source.save(new User(null, "Message " + i, "Name " + i));
+        }
+        Path file = dir.resolve("greetings.snapshot");
+        GreetingSnapshotter snapshotter = new GreetingSnapshotter(source, file);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // When: scheduled snapshots racing with the one taken at shutdown
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                writes.add(executor.submit(i % 2 == 0 ? snapshotter::snapshot : snapshotter::shutdown));
+            }
+            for (Future<?> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+
+            // Then
+            UserDaoImpl restored = new UserDaoImpl();
+            assertEquals(2_000, restored.restore(GreetingSnapshot.open(file)));
+            assertEquals(source.findAll(), restored.findAll());
+            assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GreetingWarmUpTest {
+
+    @Test
+    @DisplayName("Test warm-up runs every iteration within its budget")
+    void testCompletes() throws Exception {
+        // Given
+        GreetingWarmUp warmUp = warmUp(1_000, Duration.ofMinutes(1));
+
+        // When
+        GreetingWarmUp.Result result = warmUp.warmUp();
+
+        // Then
+        assertTrue(result.completed());
+        assertEquals(1_000, result.iterations());
+        assertTrue(result.firstRoundMicros() > 0);
+        assertTrue(result.lastRoundMicros() > 0);
+        // No server is listening, so only the scratch store is exercised
+        assertEquals(0, result.serverRequests());
+    }
+
+    @Test
+    @DisplayName("Test warm-up stops when its budget runs out")
+    void testBudget() throws Exception {
+        // Given
+        GreetingWarmUp warmUp = warmUp(Integer.MAX_VALUE, Duration.ofMillis(200));
+
+        // When
+        GreetingWarmUp.Result result = warmUp.warmUp();
+
+        // Then
+        assertFalse(result.completed());
+        assertTrue(result.iterations() > 0);
+        assertTrue(result.elapsed().compareTo(Duration.ofSeconds(5)) < 0);
+    }
+
+    @Test
+    @DisplayName("Test a finished run publishes its result")
+    void testRun() {
+        // Given
+        GreetingWarmUp warmUp = warmUp(200, Duration.ofMinutes(1));
+
+        // When
+        warmUp.run(null);
+
+        // Then
+        assertNotNull(warmUp.getResult());
+        assertEquals(200, warmUp.getResult().iterations());
+    }
+
+    private GreetingWarmUp warmUp(int iterations, Duration budget) {
+        return new GreetingWarmUp(new ObjectMapper(), new StandardEnvironment(),
+                LoggingSystem.get(getClass().getClassLoader()), new LatencyHistograms(), iterations, budget);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeavyHittersTest {
+
+    @Test
+    @DisplayName("Test counts are exact below capacity")
+    void testExactBelowCapacity() {
+        // Given
+        HeavyHitters sketch = new HeavyHitters(10);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            sketch.offer("a");
+        }
+        sketch.offer("b");
+        sketch.offer("b");
+        sketch.offer("c");
+
+        // Then
+        List<HeavyHitters.Estimate> top = sketch.top(10);
+        assertEquals(List.of(
+                new HeavyHitters.Estimate("a", 4, 0),
+                new HeavyHitters.Estimate("b", 2, 0),
+                new HeavyHitters.Estimate("c", 1, 0)), top);
+    }
+
+    @Test
+    @DisplayName("Test frequent keys are found with a small budget")
+    void testFindsHeavyHitters() {
+        // Given
+        HeavyHitters sketch = new HeavyHitters(20);
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            if (i % 4 == 0) {
+                sketch.offer("hot");
+            } else if (i % 10 == 1) {
+                sketch.offer("warm");
+            } else {
+                sketch.offer("cold-" + random.nextInt(10_000));
+            }
+        }
+
+        // Then
+        List<HeavyHitters.Estimate> top = sketch.top(2);
+        assertEquals("hot", top.get(0).key());
+        assertEquals("warm", top.get(1).key());
+        assertTrue(top.get(0).count() - top.get(0).error() <= 25_000);
+        assertTrue(top.get(0).count() >= 25_000);
+        assertEquals(20, sketch.size());
+    }
+}
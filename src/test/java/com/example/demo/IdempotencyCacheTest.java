@@ -0,0 +1,205 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyCacheTest {
+
+    private MutableClock clock;
+    private IdempotencyCache<String> cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        cache = new IdempotencyCache<>(2, Duration.ofMinutes(1), clock);
+    }
+
+    @Test
+    @DisplayName("Test repeated key replays the stored result")
+    void testReplay() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+
+        // When
+        String first = cache.execute("key", () -> "result-" + executions.incrementAndGet());
+        String second = cache.execute("key", () -> "result-" + executions.incrementAndGet());
+
+        // Then
+        assertEquals("result-1", first);
+        assertEquals("result-1", second);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("Test concurrent duplicates wait for the in-flight execution")
+    void testConcurrentDuplicatesShareExecution() throws Exception {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.execute("key", () -> {
+                executions.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "result";
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test entries expire after the ttl")
+    void testExpiry() {
+        // Given
+        cache.execute("key", () -> "first");
+
+        // When
+        clock.advance(Duration.ofMinutes(2));
+        String result = cache.execute("key", () -> "second");
+
+        // Then
+        assertEquals("second", result);
+    }
+
+    @Test
+    @DisplayName("Test oldest entries are dropped at capacity")
+    void testCapacity() {
+        // When
+        cache.execute("a", () -> "a");
+        cache.execute("b", () -> "b");
+        cache.execute("c", () -> "c");
+
+        // Then
+        assertEquals(2, cache.size());
+        assertEquals("a-again", cache.execute("a", () -> "a-again"));
+    }
+
+    @Test
+    @DisplayName("Test failed execution is not remembered")
+    void testFailureIsNotCached() {
+        // When
+        assertThrows(IllegalStateException.class, () -> cache.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        String result = cache.execute("key", () -> "retried");
+
+        // Then
+        assertEquals("retried", result);
+    }
+
+    @Test
+    @DisplayName("Test failed executions leave nothing behind")
+    void testFailuresDoNotAccumulate() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            String key = "key-" + i;
+            assertThrows(IllegalStateException.class, () -> cache.execute(key, () -> {
+                throw new IllegalStateException("boom");
+            }));
+        }
+
+        // Then
+        assertEquals(0, cache.size());
+        assertEquals("a", cache.execute("a", () -> "a"));
+    }
+
+    @Test
+    @DisplayName("Test an error reaches callers waiting on the same key")
+    void testErrorReachesWaiters() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            Future<String> first = executor.submit(() -> cache.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw new AssertionError("boom");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> duplicate = executor.submit(() -> cache.execute("key", () -> "unused"));
+            Thread.sleep(100);
+            release.countDown();
+
+            // Then
+            for (Future<String> result : List.of(first, duplicate)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(AssertionError.class, e.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test entries still executing are not evicted at capacity")
+    void testInFlightNotEvicted() throws Exception {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> slow = executor.submit(() -> cache.execute("slow", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "slow";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // When
+            cache.execute("a", () -> "a");
+            cache.execute("b", () -> "b");
+            cache.execute("c", () -> "c");
+            release.countDown();
+
+            // Then
+            assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+            assertEquals("slow", cache.execute("slow", () -> "again-" + executions.incrementAndGet()));
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
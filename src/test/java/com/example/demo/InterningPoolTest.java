@@ -0,0 +1,123 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterningPoolTest {
+
+    @Test
+    @DisplayName("Test equal values share one instance while referenced")
+    void testAcquireSharesInstance() {
+        // Given
+        InterningPool pool = new InterningPool();
+        String first = pool.acquire(new String("Hello"));
+
+        // When
+        String second = pool.acquire(new String("Hello"));
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, pool.getDistinctValues());
+        assertEquals(45, pool.getBytesSaved());
+    }
+
+    @Test
+    @DisplayName("Test a value leaves the pool with its last reference")
+    void testReleaseRemovesValue() {
+        // Given
+        InterningPool pool = new InterningPool();
+        pool.acquire("Hello");
+        pool.acquire("Hello");
+
+        // When
+        pool.release("Hello");
+        long savedWithOneReference = pool.getBytesSaved();
+        pool.release("Hello");
+
+        // Then
+        assertEquals(0, savedWithOneReference);
+        assertEquals(0, pool.getDistinctValues());
+        assertNull(pool.acquire(null));
+    }
+
+    @Test
+    @DisplayName("Test the store shares repeated names and messages between greetings")
+    void testStoreDeduplicatesValues() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl();
+        List<User> saved = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            saved.add(userDAO.save(new User(null, new String("Welcome to the Hello API number " + i % 10), "Name " + i % 100)));
+        }
+
+        // Then
+        User first = userDAO.findById(saved.get(0).getId()).orElseThrow();
+        User eleventh = userDAO.findById(saved.get(10).getId()).orElseThrow();
+        assertSame(first.getMessage(), eleventh.getMessage());
+        assertEquals(110, userDAO.getDistinctValueCount());
+        assertTrue(userDAO.getDeduplicatedBytes() > 10_000 * 40, "Saved " + userDAO.getDeduplicatedBytes());
+    }
+
+    @Test
+    @DisplayName("Test updated and deleted greetings release their values")
+    void testStoreReleasesValues() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl();
+        User first = userDAO.save(new User(null, "Hello", "John"));
+        User second = userDAO.save(new User(null, "Hello", "John"));
+
+        // When
+        userDAO.update(first.getId(), new User(null, "Goodbye", "John"));
+        userDAO.delete(second.getId());
+        userDAO.delete(first.getId());
+
+        // Then
+        assertEquals(0, userDAO.getDistinctValueCount());
+        assertEquals(0, userDAO.getDeduplicatedBytes());
+    }
+
+    @Test
+    @DisplayName("Test changing a greeting handed out by the store leaves its values pooled correctly")
+    void testCallerChangesDoNotLeak() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl();
+        User saved = userDAO.save(new User(null, "Hello", "John"));
+        userDAO.findById(saved.getId()).orElseThrow().setName("Jane");
+        userDAO.findAll().get(0).setMessage("Goodbye");
+        userDAO.update(saved.getId(), new User(null, "Hello", "John")).orElseThrow().setName("Jim");
+
+        // When
+        userDAO.update(saved.getId(), new User(null, "Hi", "Joe"), 2);
+        assertThrows(VersionConflictException.class, () -> userDAO.update(saved.getId(), new User(null, "Hey", "Ann"), 1));
+        userDAO.delete(saved.getId());
+
+        // Then
+        assertEquals(0, userDAO.getDistinctValueCount());
+        assertEquals(0, userDAO.getDeduplicatedBytes());
+    }
+
+    @Test
+    @DisplayName("Test deduplication can be turned off")
+    void testDisabled() {
+        // Given
+        UserDaoImpl userDAO = new UserDaoImpl(0, Duration.ZERO, Clock.systemUTC(), false);
+
+        // When
+        User first = userDAO.save(new User(null, new String("Hello"), "John"));
+        User second = userDAO.save(new User(null, new String("Hello"), "John"));
+
+        // Then
+        assertNotSame(userDAO.findById(first.getId()).orElseThrow().getMessage(),
+                userDAO.findById(second.getId()).orElseThrow().getMessage());
+        assertEquals(0, userDAO.getDeduplicatedBytes());
+    }
+}
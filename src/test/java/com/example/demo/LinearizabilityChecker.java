@@ -0,0 +1,164 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records concurrent {@link UserDAO} calls and checks that the history is
+ * linearizable against a sequential model of a single greeting. Greetings are
+ * independent, so each one is checked on its own history (linearizability is
+ * compositional). The search tries every operation that may take effect next,
+ * in the style of Wing and Gong, and memoizes visited (done set, state) pairs.
+ */
+final class LinearizabilityChecker {
+
+    enum Kind { SAVE, FIND, UPDATE, COMPARE_AND_SET, DELETE }
+
+    enum Outcome { PRESENT, ABSENT, CONFLICT, DELETED }
+
+    /**
+     * One completed call. {@code message} and {@code expectedVersion} are the inputs;
+     * {@code outcome}, {@code resultMessage} and {@code resultVersion} what was observed.
+     */
+    record Operation(String id, Kind kind, String message, long expectedVersion,
+                     Outcome outcome, String resultMessage, long resultVersion,
+                     long invokedAt, long returnedAt, String thread) {
+    }
+
+    private record State(boolean exists, String message, long version) {
+        static final State ABSENT = new State(false, null, 0);
+    }
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Collection<Operation> history = new ConcurrentLinkedQueue<>();
+
+    long invoke() {
+        return clock.incrementAndGet();
+    }
+
+    void completed(String id, Kind kind, String message, long expectedVersion, long invokedAt,
+                   Outcome outcome, String resultMessage, long resultVersion) {
+        history.add(new Operation(id, kind, message, expectedVersion, outcome, resultMessage, resultVersion,
+                invokedAt, clock.incrementAndGet(), Thread.currentThread().getName()));
+    }
+
+    void completed(String id, Kind kind, String message, long expectedVersion, long invokedAt, Optional<User> result) {
+        completed(id, kind, message, expectedVersion, invokedAt,
+                result.isPresent() ? Outcome.PRESENT : Outcome.ABSENT,
+                result.map(User::getMessage).orElse(null), result.map(User::getVersion).orElse(0L));
+    }
+
+    int size() {
+        return history.size();
+    }
+
+    /**
+     * Checks every greeting's history and returns a description of the first one
+     * that cannot be linearized, or empty if all of them can.
+     */
+    Optional<String> findViolation() {
+        Map<String, List<Operation>> byId = new LinkedHashMap<>();
+        for (Operation operation : history) {
+            byId.computeIfAbsent(operation.id(), id -> new ArrayList<>()).add(operation);
+        }
+        for (Map.Entry<String, List<Operation>> entry : byId.entrySet()) {
+            List<Operation> operations = entry.getValue();
+            operations.sort((a, b) -> Long.compare(a.invokedAt(), b.invokedAt()));
+            if (!linearizable(operations, new BitSet(operations.size()), State.ABSENT, new HashSet<>())) {
+                StringBuilder description = new StringBuilder("History of greeting " + entry.getKey() + " is not linearizable:");
+                for (Operation operation : operations) {
+                    description.append("\n  ").append(operation);
+                }
+                return Optional.of(description.toString());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private record Visited(BitSet done, State state) {
+    }
+
+    private static boolean linearizable(List<Operation> operations, BitSet done, State state, Set<Visited> visited) {
+        if (done.cardinality() == operations.size()) {
+            return true;
+        }
+        if (!visited.add(new Visited((BitSet) done.clone(), state))) {
+            return false;
+        }
+        // Only operations invoked before the earliest pending return may take effect next
+        long earliestReturn = Long.MAX_VALUE;
+        for (int i = done.nextClearBit(0); i < operations.size(); i = done.nextClearBit(i + 1)) {
+            earliestReturn = Math.min(earliestReturn, operations.get(i).returnedAt());
+        }
+        for (int i = done.nextClearBit(0); i < operations.size(); i = done.nextClearBit(i + 1)) {
+            Operation operation = operations.get(i);
+            if (operation.invokedAt() > earliestReturn) {
+                break;
+            }
+            State next = apply(state, operation);
+            if (next != null) {
+                done.set(i);
+                if (linearizable(operations, done, next, visited)) {
+                    return true;
+                }
+                done.clear(i);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies {@code operation} to the sequential model, returning the next state or
+     * null if the observed outcome is impossible in {@code state}.
+     */
+    private static State apply(State state, Operation operation) {
+        switch (operation.kind()) {
+            case SAVE:
+                return !state.exists() && isPresent(operation, operation.message(), 1)
+                        ? new State(true, operation.message(), 1) : null;
+            case FIND:
+                if (!state.exists()) {
+                    return operation.outcome() == Outcome.ABSENT ? state : null;
+                }
+                return isPresent(operation, state.message(), state.version()) ? state : null;
+            case UPDATE:
+                if (!state.exists()) {
+                    return operation.outcome() == Outcome.ABSENT ? state : null;
+                }
+                return isPresent(operation, operation.message(), state.version() + 1)
+                        ? new State(true, operation.message(), state.version() + 1) : null;
+            case COMPARE_AND_SET:
+                if (!state.exists()) {
+                    return operation.outcome() == Outcome.ABSENT ? state : null;
+                }
+                if (state.version() != operation.expectedVersion()) {
+                    return operation.outcome() == Outcome.CONFLICT && operation.resultVersion() == state.version() ? state : null;
+                }
+                return isPresent(operation, operation.message(), state.version() + 1)
+                        ? new State(true, operation.message(), state.version() + 1) : null;
+            case DELETE:
+                if (!state.exists()) {
+                    return operation.outcome() == Outcome.ABSENT ? state : null;
+                }
+                return operation.outcome() == Outcome.DELETED ? State.ABSENT : null;
+            default:
+                throw new IllegalStateException("Unknown operation " + operation.kind());
+        }
+    }
+
+    private static boolean isPresent(Operation operation, String message, long version) {
+        return operation.outcome() == Outcome.PRESENT
+                && Objects.equals(operation.resultMessage(), message)
+                && operation.resultVersion() == version;
+    }
+}
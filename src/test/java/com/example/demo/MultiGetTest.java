@@ -0,0 +1,125 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MultiGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Test
+    @DisplayName("Test many ids are found in request order across partitions")
+    void testFindAllById() {
+        // Given
+        UserDaoImpl store = new UserDaoImpl();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(store.save(new User(null, "Hello " + i, "John")).getId());
+        }
+        store.delete(ids.get(10));
+        List<String> requested = List.of(ids.get(50), ids.get(10), "missing", ids.get(3), ids.get(99));
+
+        // When
+        Map<String, User> found = store.findAllById(requested);
+
+        // Then
+        assertEquals(List.of(ids.get(50), ids.get(3), ids.get(99)), new ArrayList<>(found.keySet()));
+        assertEquals("Hello 50", found.get(ids.get(50)).getMessage());
+    }
+
+    @Test
+    @DisplayName("Test many ids are found across memory and segment tiers")
+    void testFindAllByIdTiered(@TempDir Path dir) throws Exception {
+        // Given
+        try (TieredUserDao store = new TieredUserDao(dir, 1_000, 4, 0)) {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                ids.add(store.save(new User(null, "Hello " + i, "John")).getId());
+            }
+            store.flush();
+            store.update(ids.get(7), new User(null, "Updated", "John"));
+            store.delete(ids.get(8));
+            List<String> requested = List.of(ids.get(150), ids.get(7), ids.get(8), "007", ids.get(0), ids.get(150));
+
+            // When
+            Map<String, User> found = store.findAllById(requested);
+
+            // Then
+            assertEquals(List.of(ids.get(150), ids.get(7), ids.get(0)), new ArrayList<>(found.keySet()));
+            assertEquals("Updated", found.get(ids.get(7)).getMessage());
+            assertEquals("Hello 150", found.get(ids.get(150)).getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Test GET with ids returns found greetings and missing ids")
+    void testMultiGetQuery() throws Exception {
+        // Given
+        String first = userDAO.save(new User(null, "Hi", "John")).getId();
+        String second = userDAO.save(new User(null, "Hey", "Jane")).getId();
+
+        // When / Then
+        mockMvc.perform(get("/hello").param("ids", second + "," + first + ",unknown"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found.length()").value(2))
+                .andExpect(jsonPath("$.found[0].name").value("Jane"))
+                .andExpect(jsonPath("$.found[1].name").value("John"))
+                .andExpect(jsonPath("$.missing[0]").value("unknown"));
+    }
+
+    @Test
+    @DisplayName("Test POST multi-get reads ids from the body")
+    void testMultiGetBody() throws Exception {
+        // Given
+        String id = userDAO.save(new User(null, "Hi", "John")).getId();
+
+        // When / Then
+        mockMvc.perform(post("/hello/multi-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[\"" + id + "\",\"" + id + "\",\"0\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found.length()").value(1))
+                .andExpect(jsonPath("$.missing.length()").value(1));
+    }
+
+    @Test
+    @DisplayName("Test too many ids are rejected with 400")
+    void testTooManyIds() throws Exception {
+        // Given
+        StringBuilder ids = new StringBuilder("[");
+        for (int i = 1; i <= BulkGreetingController.MAX_MULTI_GET_IDS + 1; i++) {
+            ids.append(i > 1 ? "," : "").append('"').append(i).append('"');
+        }
+
+        // When / Then
+        mockMvc.perform(post("/hello/multi-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":" + ids + "]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/hello"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NdjsonBulkLoaderTest {
+
+    private UserDAO userDAO;
+    private NdjsonBulkLoader bulkLoader;
+
+    @BeforeEach
+    void setUp() {
+        userDAO = new UserDaoImpl();
+        bulkLoader = new NdjsonBulkLoader(userDAO, new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Test stream import stores valid lines and rejects the rest")
+    void testImportStream() throws Exception {
+        // Given
+        String ndjson = """
+                {"name":"John","message":"First"}
+
+                {"name":"Jane"}
+                not json
+                {"name":"Bob","message":"Second"}
+                """;
+
+        // When
+        NdjsonBulkLoader.ImportResult result = bulkLoader.importStream(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        List<User> stored = userDAO.findAll();
+        assertEquals("John", stored.get(0).getName());
+        assertEquals("Bob", stored.get(1).getName());
+    }
+
+    @Test
+    @DisplayName("Test file import keeps file order across chunks")
+    void testImportFile(@TempDir Path dir) throws Exception {
+        // Given
+        int count = 50_000;
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            ndjson.append("{\"name\":\"Name ").append(i).append("\",\"message\":\"Message ").append(i).append("\"}\n");
+        }
+        Path file = dir.resolve("greetings.ndjson");
+        Files.writeString(file, ndjson);
+
+        // When
+        NdjsonBulkLoader.ImportResult result = bulkLoader.importFile(file);
+
+        // Then
+        assertEquals(count, result.imported());
+        assertEquals(0, result.rejected());
+        List<User> stored = userDAO.findAll();
+        assertEquals(count, stored.size());
+        assertEquals("Name 0", stored.get(0).getName());
+        assertEquals("Message " + (count - 1), stored.get(count - 1).getMessage());
+    }
+
+    @Test
+    @DisplayName("Test export writes one greeting per line")
+    void testExport() throws Exception {
+        // Given
+        userDAO.save(new User(null, "First", "John"));
+        userDAO.save(new User(null, "Second", "Jane"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long exported = bulkLoader.export(out);
+
+        // Then
+        assertEquals(2, exported);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"name\":\"John\""));
+        assertTrue(lines[1].startsWith("{") && lines[1].contains("\"name\":\"Jane\""));
+    }
+
+    @Test
+    @DisplayName("Test exported greetings can be imported again")
+    void testRoundTrip() throws Exception {
+        // Given
+        userDAO.save(new User(null, "First", "John"));
+        userDAO.save(new User(null, "Second", "Jane"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkLoader.export(out);
+        UserDAO target = new UserDaoImpl();
+
+        // When
+        new NdjsonBulkLoader(target, new ObjectMapper()).importStream(new ByteArrayInputStream(out.toByteArray()));
+
+        // Then: export order follows the store partitions, so ids may be handed out in a different order
+        assertEquals(contents(userDAO.findAll()), contents(target.findAll()));
+    }
+
+    private static Set<String> contents(List<User> greetings) {
+        return greetings.stream().map(greeting -> greeting.getName() + ":" + greeting.getMessage()).collect(Collectors.toSet());
+    }
+}
@@ -2,6 +2,7 @@ package com.example.demo;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -57,4 +58,35 @@ public class PostMethodTest {
         assertEquals("2", second.getId(), "Second greeting should have ID 2");
         assertEquals("3", third.getId(), "Third greeting should have ID 3");
     }
+
+    /**
+     * Test POST endpoint replays the original greeting for a repeated Idempotency-Key
+     */
+    @Test
+    void testCreateGreetingIdempotencyKeyReplay() {
+        // Given
+        UserRequest request = new UserRequest("John", "Good morning!");
+
+        // When
+        User first = helloController.createGreeting(request, "retry-1");
+        User retry = helloController.createGreeting(request, "retry-1");
+
+        // Then
+        assertEquals(first, retry, "Retry should return the original greeting");
+        assertEquals(1, helloController.getAllGreetings().size(), "Retry should not store a duplicate");
+    }
+
+    /**
+     * Test POST endpoint rejects reuse of an Idempotency-Key for a different request
+     */
+    @Test
+    void testCreateGreetingIdempotencyKeyMismatch() {
+        // Given
+        helloController.createGreeting(new UserRequest("John", "First"), "retry-1");
+
+        // When & Then
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> helloController.createGreeting(new UserRequest("Jane", "Second"), "retry-1"));
+        assertEquals(422, exception.getStatusCode().value(), "Reused key should be rejected");
+    }
 }
\ No newline at end of file
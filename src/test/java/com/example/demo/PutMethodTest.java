@@ -2,6 +2,7 @@ package com.example.demo;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,4 +46,41 @@ public class PutMethodTest {
         assertTrue(response.getBody().getMessage().contains(updatedName), "Updated greeting should contain new name");
         assertTrue(response.getBody().getMessage().contains(updatedMessage), "Updated greeting should contain new message");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test PUT with a current If-Match version applies the update and returns the next version
+     */
+    @Test
+    void testUpdateWithMatchingVersion() {
+        // Given
+        User original = createSampleGreeting("John", "Initial message");
+
+        // When
+        ResponseEntity<User> response = helloController.updateGreeting(original.getId(),
+                new UserRequest("John", "Updated message"), "\"1\"");
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"2\"", response.getHeaders().getETag());
+        assertEquals(2, response.getBody().getVersion());
+    }
+
+    /**
+     * Test PUT with a stale If-Match version is rejected with 412 and leaves the greeting unchanged
+     */
+    @Test
+    void testUpdateWithStaleVersion() {
+        // Given
+        User original = createSampleGreeting("John", "Initial message");
+        helloController.updateGreeting(original.getId(), new UserRequest("John", "First update"), "\"1\"");
+
+        // When
+        ResponseEntity<User> response = helloController.updateGreeting(original.getId(),
+                new UserRequest("John", "Second update"), "\"1\"");
+
+        // Then
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals("\"2\"", response.getHeaders().getETag());
+        assertTrue(helloController.getAllGreetings().get(0).getMessage().contains("First update"));
+    }
+}
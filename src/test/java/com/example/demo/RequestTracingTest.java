@@ -0,0 +1,93 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "greetings.tracing.sample-rate=1.0")
+@AutoConfigureMockMvc
+public class RequestTracingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LatencyHistograms histograms;
+
+    @BeforeEach
+    void setUp() {
+        histograms.reset();
+    }
+
+    @Test
+    @DisplayName("Test every layer of a sampled request is recorded")
+    void testLayersRecorded() throws Exception {
+        // When
+        mockMvc.perform(post("/hello")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"John\",\"message\":\"Hi\"}"))
+                .andExpect(status().isOk());
+
+        // Then
+        Map<String, LatencyHistograms.Summary> layers = histograms.summaries().get("POST /hello");
+        assertNotNull(layers, "POST /hello should have been traced");
+        for (String layer : new String[] {"validation", "handler", "store", "encoding", "total"}) {
+            assertEquals(1, layers.get(layer).count(), "Layer " + layer + " should have one sample");
+        }
+        assertTrue(layers.get("total").maxMicros() >= layers.get("store").maxMicros());
+    }
+
+    @Test
+    @DisplayName("Test requests rejected before the handler only record the total")
+    void testRejectedRequest() throws Exception {
+        // When
+        mockMvc.perform(post("/hello")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{not json"))
+                .andExpect(status().isBadRequest());
+
+        // Then
+        Map<String, LatencyHistograms.Summary> layers = histograms.summaries().get("POST /hello");
+        assertNotNull(layers);
+        assertEquals(1, layers.get("total").count());
+        assertEquals(0, layers.get("handler").count());
+    }
+
+    @Test
+    @DisplayName("Test path validation failures never reach the handler")
+    void testPathValidationFailure() {
+        // When
+        assertThrows(Exception.class, () -> mockMvc.perform(get("/hello/{name}", "bad-name!")));
+
+        // Then
+        Map<String, LatencyHistograms.Summary> layers = histograms.summaries().get("GET /hello/{name}");
+        assertNotNull(layers);
+        assertEquals(1, layers.get("total").count());
+        assertEquals(0, layers.get("handler").count());
+    }
+
+    @Test
+    @DisplayName("Test histograms are published at the actuator endpoint")
+    void testActuatorEndpoint() throws Exception {
+        // Given
+        mockMvc.perform(get("/hello/all")).andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(get("/actuator/latency"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['GET /hello/all'].store.count").value(1));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    @DisplayName("Test concurrent identical calls share one execution")
+    void testCoalesces() throws Exception {
+        // Given
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            // When: the first caller blocks inside the computation until every other caller joined it
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flight.execute("all", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return "result";
+                })));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flight.getCoalesced() < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                assertEquals("result", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals(1, flight.getExecutions());
+            assertEquals(CALLERS - 1, flight.getCoalesced());
+            assertEquals(0, flight.getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test calls after a finished execution compute again")
+    void testNoCaching() {
+        // Given
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger counter = new AtomicInteger();
+
+        // When
+        int first = flight.execute("key", counter::incrementAndGet);
+        int second = flight.execute("key", counter::incrementAndGet);
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(0, flight.getCoalesced());
+    }
+
+    @Test
+    @DisplayName("Test a failure reaches every waiting caller and is not remembered")
+    void testFailure() throws Exception {
+        // Given
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            Future<String> leader = executor.submit(() -> flight.execute("key", () -> {
+                await(release);
+                throw new IllegalStateException("store unavailable");
+            }));
+            while (flight.getInFlight() == 0) {
+                Thread.sleep(1);
+            }
+            Future<String> follower = executor.submit(() -> flight.execute("key", () -> "unused"));
+            while (flight.getCoalesced() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            // Then
+            for (Future<String> result : List.of(leader, follower)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+            assertEquals("recovered", flight.execute("key", () -> "recovered"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test different keys never share an execution")
+    void testDistinctKeys() {
+        // Given
+        SingleFlight<String, String> flight = new SingleFlight<>();
+
+        // When
+        String outer = flight.execute("a", () -> flight.execute("b", () -> "inner") + "-outer");
+
+        // Then
+        assertEquals("inner-outer", outer);
+        assertEquals(2, flight.getExecutions());
+    }
+
+    @Test
+    @DisplayName("Test service reads count executions")
+    void testServiceCounts() {
+        // Given
+        UserServiceImpl service = new UserServiceImpl(new UserDaoImpl());
+        User created = service.createGreeting(new UserRequest("John", "Hi"));
+
+        // When
+        service.getAllGreetings();
+        service.getGreetingById(created.getId());
+
+        // Then
+        assertEquals(2, service.getExecutedReadCount());
+        assertEquals(0, service.getCoalescedReadCount());
+        assertThrows(UnsupportedOperationException.class, () -> service.getAllGreetings().clear());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts the application on an existing snapshot and checks the statistics count
+ * the restored greetings.
+ */
+@SpringBootTest
+public class SnapshotRestoreStatsTest {
+
+    @Autowired
+    private GreetingAnalytics analytics;
+
+    @DynamicPropertySource
+    static void snapshotFile(DynamicPropertyRegistry registry) {
+        registry.add("greetings.snapshot.file", SnapshotRestoreStatsTest::writeSnapshot);
+    }
+
+    private static String writeSnapshot() {
+        try {
+            UserDaoImpl source = new UserDaoImpl();
+            source.save(new User(null, "First", "Restored"));
+            source.save(new User(null, "Second", "Restored"));
+            source.save(new User(null, "Third", "Other"));
+            Path file = Files.createTempDirectory("snapshot-stats").resolve("greetings.snapshot");
+            source.writeSnapshot(file);
+            return file.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Test greetings restored at startup are counted by the statistics")
+    void testRestoredGreetingsCounted() {
+        // Then
+        assertEquals(2, analytics.countForName("Restored"));
+        assertEquals(3, analytics.totals().greetings());
+    }
+}
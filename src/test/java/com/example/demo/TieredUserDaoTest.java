@@ -0,0 +1,417 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TieredUserDaoTest {
+
+    @TempDir
+    Path dir;
+
+    private TieredUserDao userDAO;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        userDAO = new TieredUserDao(dir, 1_000, 4, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userDAO.close();
+    }
+
+    @Test
+    @DisplayName("Test flushed greetings are read back from segments")
+    void testFlushedGreetingsReadable() {
+        // Given
+        List<User> saved = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            saved.add(userDAO.save(new User(null, "Message " + i, "Name " + i)));
+        }
+
+        // When
+        userDAO.flush();
+
+        // Then
+        assertEquals(0, userDAO.getMemtableSize());
+        assertEquals(1, userDAO.getSegmentCount());
+        for (User greeting : saved) {
+            assertEquals(greeting, userDAO.findById(greeting.getId()).orElseThrow());
+        }
+        assertEquals(saved, userDAO.findAll());
+    }
+
+    @Test
+    @DisplayName("Test newer tiers shadow older segments")
+    void testNewestWins() {
+        // Given
+        User first = userDAO.save(new User(null, "Original", "John"));
+        User second = userDAO.save(new User(null, "Original", "Jane"));
+        userDAO.flush();
+
+        // When
+        userDAO.update(first.getId(), new User(null, "Updated", "John"));
+        userDAO.delete(second.getId());
+        userDAO.flush();
+
+        // Then
+        assertEquals(2, userDAO.getSegmentCount());
+        User updated = userDAO.findById(first.getId()).orElseThrow();
+        assertEquals("Updated", updated.getMessage());
+        assertEquals(2, updated.getVersion());
+        assertFalse(userDAO.exists(second.getId()));
+        assertEquals(List.of(updated), userDAO.findAll());
+    }
+
+    @Test
+    @DisplayName("Test compaction merges segments and drops deleted greetings")
+    void testCompaction() throws IOException {
+        // Given
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                userDAO.save(new User(null, "Round " + round, "Name " + i));
+            }
+            userDAO.flush();
+        }
+        userDAO.deleteWhere(new GreetingFilter("Name 0", null, null, null));
+        userDAO.flush();
+        List<User> before = userDAO.findAll();
+
+        // When
+        userDAO.compact();
+
+        // Then
+        assertEquals(1, userDAO.getSegmentCount());
+        assertEquals(27, before.size());
+        assertEquals(before, userDAO.findAll());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Test a reopened store keeps its greetings and id sequence")
+    void testReopen() throws IOException {
+        // Given
+        User kept = userDAO.save(new User(null, "Kept", "John"));
+        User deleted = userDAO.save(new User(null, "Deleted", "Jane"));
+        userDAO.delete(deleted.getId());
+        userDAO.flush();
+        userDAO.save(new User(null, "Unflushed", "Jim"));
+        userDAO.close();
+
+        // When
+        userDAO = new TieredUserDao(dir, 1_000, 4, 100);
+        userDAO.compact();
+        User next = userDAO.save(new User(null, "Next", "Joe"));
+
+        // Then
+        assertEquals(kept, userDAO.findById(kept.getId()).orElseThrow());
+        assertEquals(2, userDAO.findAll().size() - 1);
+        assertEquals("4", next.getId());
+    }
+
+    @Test
+    @DisplayName("Test pages merge the tiers from just after the given id")
+    void testFindPage() {
+        // Given
+        List<User> saved = saveInSegments(3);
+        userDAO.delete(saved.get(12).getId());
+        userDAO.update(saved.get(13).getId(), new User(null, "Updated", "Name 3"));
+
+        // When
+        List<User> page = userDAO.findPage(Long.parseLong(saved.get(10).getId()), 5);
+
+        // Then
+        assertEquals(List.of(saved.get(11), saved.get(13), saved.get(14), saved.get(15), saved.get(16)).stream().map(User::getId).toList(),
+                page.stream().map(User::getId).toList());
+        assertEquals("Updated", page.get(1).getMessage());
+        assertTrue(userDAO.findPage(Long.parseLong(saved.get(29).getId()), 5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test misses skip segments through the Bloom filter")
+    void testBloomFilterSkipsMisses() {
+        // Given
+        for (int i = 0; i < 500; i++) {
+            userDAO.save(new User(null, "Hello", "John"));
+        }
+        userDAO.flush();
+
+        // When
+        for (int i = 10_000; i < 11_000; i++) {
+            assertFalse(userDAO.exists(String.valueOf(i)));
+        }
+
+        // Then
+        assertTrue(userDAO.getBloomSkipCount() > 950, "Skipped " + userDAO.getBloomSkipCount());
+    }
+
+    @Test
+    @DisplayName("Test cold greetings stay in memory after a read until they change")
+    void testHotCache() {
+        // Given
+        User greeting = userDAO.save(new User(null, "Hello", "John"));
+        userDAO.flush();
+        userDAO.findById(greeting.getId());
+        long segmentReads = userDAO.getSegmentReadCount();
+
+        // When
+        userDAO.findById(greeting.getId());
+
+        // Then
+        assertEquals(segmentReads, userDAO.getSegmentReadCount());
+        assertEquals(1, userDAO.getHotCacheSize());
+        userDAO.update(greeting.getId(), new User(null, "Changed", "John"));
+        assertEquals(0, userDAO.getHotCacheSize());
+        assertEquals("Changed", userDAO.findById(greeting.getId()).orElseThrow().getMessage());
+    }
+
+    @Test
+    @DisplayName("Test a compaction that crashed before finishing is discarded on reopen")
+    void testUnfinishedCompactionDiscarded() throws IOException {
+        // Given
+        List<User> saved = saveInSegments(3);
+        userDAO.close();
+        // Only the first of the compaction's outputs made it to disk
+        try (GreetingSegment.Writer writer = new GreetingSegment.Writer(dir.resolve("segment-0000000000000100.compacting"), 100, 3, 30)) {
+            writer.write(new GreetingSegment.Stored(1, saved.get(0)));
+            writer.commit();
+        }
+
+        // When
+        userDAO = new TieredUserDao(dir, 1_000, 4, 100);
+
+        // Then
+        assertEquals(3, userDAO.getSegmentCount());
+        assertEquals(saved, userDAO.findAll());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".compacting")));
+        }
+    }
+
+    @Test
+    @DisplayName("Test a compaction that crashed after its marker is completed on reopen")
+    void testFinishedCompactionCompleted() throws IOException {
+        // Given
+        List<User> saved = saveInSegments(3);
+        userDAO.close();
+        try (GreetingSegment.Writer writer = new GreetingSegment.Writer(dir.resolve("segment-0000000000000100.compacting"), 100, 3, 30)) {
+            for (User greeting : saved) {
+                writer.write(new GreetingSegment.Stored(Long.parseLong(greeting.getId()), greeting));
+            }
+            writer.commit();
+        }
+        Files.createFile(dir.resolve("compaction.done"));
+
+        // When
+        userDAO = new TieredUserDao(dir, 1_000, 4, 100);
+
+        // Then
+        assertEquals(1, userDAO.getSegmentCount());
+        assertEquals(saved, userDAO.findAll());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of("segment-0000000000000100.seg"), files.map(file -> file.getFileName().toString()).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Test listeners see the greetings the store was opened with and every later change")
+    void testListeners() throws IOException {
+        // Given
+        User stored = userDAO.save(new User(null, "Hello", "John"));
+        userDAO.close();
+        userDAO = new TieredUserDao(dir, 1_000, 4, 100);
+        GreetingAnalytics analytics = new GreetingAnalytics(10);
+
+        // When
+        userDAO.addListener(analytics);
+        User saved = userDAO.save(new User(null, "Hello", "John"));
+        userDAO.update(saved.getId(), new User(null, "Hello", "Jane"));
+        userDAO.delete(stored.getId());
+
+        // Then
+        assertEquals(0, analytics.countForName("John"));
+        assertEquals(1, analytics.countForName("Jane"));
+    }
+
+    @Test
+    @DisplayName("Test listeners read the restored names from the segments only when they walk them")
+    void testRestoredNamesReadLazily() throws IOException {
+        // Given
+        User stored = userDAO.save(new User(null, "Hello", "John"));
+        userDAO.save(new User(null, "Hello", "Jane"));
+        userDAO.close();
+        userDAO = new TieredUserDao(dir, 1_000, 4, 100);
+        List<GreetingListener.RestoredNames> restored = new ArrayList<>();
+        List<Long> lastIds = new ArrayList<>();
+
+        // When
+        userDAO.addListener(new GreetingListener() {
+            @Override
+            public void onSaved(User greeting) {
+            }
+
+            @Override
+            public void onUpdated(User previous, User current) {
+            }
+
+            @Override
+            public void onRemoved(User greeting) {
+            }
+
+            @Override
+            public void onRestored(long lastId, RestoredNames names) {
+                lastIds.add(lastId);
+                restored.add(names);
+            }
+        });
+        userDAO.update(stored.getId(), new User(null, "Hello", "Jack"));
+        userDAO.flush();
+        List<String> names = new ArrayList<>();
+        restored.get(0).forEach(names::add);
+
+        // Then
+        assertEquals(List.of(2L), lastIds);
+        assertEquals(List.of("John", "Jane"), names);
+    }
+
+    @Test
+    @DisplayName("Test greetings handed out are copies of what the store holds")
+    void testReturnsCopies() {
+        // Given
+        User saved = userDAO.save(new User(null, "Hello", "John"));
+
+        // When
+        saved.setName("Jane");
+        userDAO.findById(saved.getId()).orElseThrow().setName("Jane");
+        userDAO.findPage(0, 10).get(0).setName("Jane");
+        userDAO.flush();
+        userDAO.findById(saved.getId()).orElseThrow().setName("Jane");
+        userDAO.findById(saved.getId()).orElseThrow().setName("Jane");
+
+        // Then
+        assertEquals("John", userDAO.findById(saved.getId()).orElseThrow().getName());
+        assertEquals("John", userDAO.findAll().get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Test segment files left unfinished by a crash are deleted on reopen")
+    void testTemporarySegmentsDeleted() throws IOException {
+        // Given
+        saveInSegments(1);
+        userDAO.close();
+        Files.write(dir.resolve("segment-0000000000000100.seg.tmp"), new byte[] {1, 2, 3});
+
+        // When
+        userDAO = new TieredUserDao(dir, 1_000, 4, 100);
+
+        // Then
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    @DisplayName("Test the tiered store cannot be combined with in-memory store settings")
+    void testIncompatibleSettingsRejected() {
+        // Given
+        GreetingStoreConfig config = new GreetingStoreConfig();
+        Path tiered = dir.resolve("config");
+
+        // When / Then
+        assertThrows(IllegalStateException.class,
+                () -> config.tieredUserDao(tiered, 1_000, 4, 100, 10, DataSize.ofBytes(0), Duration.ZERO, ""));
+        assertThrows(IllegalStateException.class,
+                () -> config.tieredUserDao(tiered, 1_000, 4, 100, 0, DataSize.ofMegabytes(64), Duration.ZERO, ""));
+        assertThrows(IllegalStateException.class,
+                () -> config.tieredUserDao(tiered, 1_000, 4, 100, 0, DataSize.ofBytes(0), Duration.ofMinutes(1), ""));
+        assertThrows(IllegalStateException.class,
+                () -> config.tieredUserDao(tiered, 1_000, 4, 100, 0, DataSize.ofBytes(0), Duration.ZERO, "greetings.snapshot"));
+    }
+
+    @Test
+    @DisplayName("Test writes past the flush threshold are flushed in the background")
+    void testBackgroundFlush() throws Exception {
+        // Given
+        TieredUserDao small = new TieredUserDao(dir.resolve("small"), 50, 3, 0);
+
+        // When
+        int saved = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        // Nothing but writes drives the flushes, so keep writing until one was followed by a compaction
+        while (small.getCompactionCount() == 0 && System.nanoTime() - deadline < 0) {
+            small.save(new User(null, "Hello " + saved++, "John"));
+        }
+        small.close();
+
+        // Then
+        assertTrue(small.getFlushCount() > 1);
+        assertTrue(small.getCompactionCount() > 0);
+        assertEquals(saved, small.findAll().size());
+    }
+
+    // Saves ten greetings into each of the given number of segments
+    private List<User> saveInSegments(int segments) {
+        List<User> saved = new ArrayList<>();
+        for (int round = 0; round < segments; round++) {
+            for (int i = 0; i < 10; i++) {
+                saved.add(userDAO.save(new User(null, "Round " + round, "Name " + i)));
+            }
+            userDAO.flush();
+        }
+        return saved;
+    }
+
+    @Test
+    @DisplayName("Test updateWhere runs the update outside the store locks and retries greetings changed meanwhile")
+    void testUpdateWhereRetriesConcurrentChange() throws Exception {
+        // Given
+        String id = userDAO.save(new User(null, "Hello", "John")).getId();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+
+        try {
+            // When: the first call of the update lets another thread change the greeting
+            List<String> seen = new ArrayList<>();
+            int updated = userDAO.updateWhere(new GreetingFilter("John", null, null, null), greeting -> {
+                seen.add(greeting.getMessage());
+                if (seen.size() == 1) {
+                    Future<?> update = writer.submit(() -> userDAO.update(id, new User(null, "Changed", "John")));
+                    try {
+                        update.get(5, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return new User(null, greeting.getMessage() + "!", greeting.getName());
+            });
+
+            // Then
+            assertEquals(1, updated);
+            assertEquals(List.of("Hello", "Changed"), seen);
+            User stored = userDAO.findById(id).orElseThrow();
+            assertEquals("Changed!", stored.getMessage());
+            assertEquals(3, stored.getVersion());
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggerConfiguration;
+import org.springframework.boot.logging.LoggingSystem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs random concurrent operations against every {@link UserDAO} backend, checks
+ * the recorded histories for linearizability and reports throughput from 1 to N
+ * threads. Sizes can be raised with {@code -Dstress.threads}, {@code -Dstress.operations}
+ * and {@code -Dstress.rounds}.
+ */
+public class UserDaoStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDaoStressTest.class);
+
+    private static final int THREADS = Integer.getInteger("stress.threads", 8);
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger("stress.operations", 200);
+    private static final int ROUNDS = Integer.getInteger("stress.rounds", 20);
+    private static final int THROUGHPUT_OPERATIONS = Integer.getInteger("stress.throughput-operations", 200_000);
+    private static final int INITIAL_GREETINGS = 16;
+    private static final String STORE_LOGGER = "com.example.demo";
+
+    private static LogLevel configuredStoreLevel;
+
+    @TempDir
+    static Path dir;
+
+    static Stream<Arguments> backends() {
+        return Stream.of(
+                Arguments.of("in-memory", (Supplier<UserDAO>) UserDaoImpl::new),
+                Arguments.of("traced in-memory", (Supplier<UserDAO>) () -> new TracingUserDao(new UserDaoImpl())),
+                // Small thresholds so flushes and compactions run while the workers are busy
+                Arguments.of("tiered", (Supplier<UserDAO>) () -> tiered(100, 3, 16)));
+    }
+
+    private static UserDAO tiered(int flushThreshold, int compactionThreshold, int hotCacheEntries) {
+        try {
+            return new TieredUserDao(Files.createTempDirectory(dir, "tiered"), flushThreshold, compactionThreshold, hotCacheEntries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @BeforeAll
+    static void quietStoreLogging() {
+        // Per-operation debug logging would dominate the timings when no Spring context configured logging yet
+        LoggingSystem loggingSystem = LoggingSystem.get(UserDaoStressTest.class.getClassLoader());
+        LoggerConfiguration configuration = loggingSystem.getLoggerConfiguration(STORE_LOGGER);
+        configuredStoreLevel = configuration == null ? null : configuration.getConfiguredLevel();
+        loggingSystem.setLogLevel(STORE_LOGGER, LogLevel.INFO);
+    }
+
+    @AfterAll
+    static void restoreStoreLogging() {
+        // Later test classes share the JVM and expect the level they configured
+        LoggingSystem.get(UserDaoStressTest.class.getClassLoader()).setLogLevel(STORE_LOGGER, configuredStoreLevel);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    @DisplayName("Test concurrent histories are linearizable")
+    void testLinearizable(String name, Supplier<UserDAO> backend) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                // Given
+                UserDAO userDAO = backend.get();
+                LinearizabilityChecker checker = new LinearizabilityChecker();
+                List<String> ids = new CopyOnWriteArrayList<>();
+                for (int i = 0; i < INITIAL_GREETINGS; i++) {
+                    long invokedAt = checker.invoke();
+                    User saved = userDAO.save(new User(null, "initial-" + i, "Stress"));
+                    checker.completed(saved.getId(), LinearizabilityChecker.Kind.SAVE, "initial-" + i, 0, invokedAt, Optional.of(saved));
+                    ids.add(saved.getId());
+                }
+
+                // When
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> workers = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    int worker = t;
+                    workers.add(executor.submit(() -> {
+                        start.await();
+                        runRandomOperations(userDAO, checker, ids, worker);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+
+                // Then
+                assertEquals(INITIAL_GREETINGS + THREADS * OPERATIONS_PER_THREAD, checker.size());
+                int currentRound = round;
+                Optional<String> violation = checker.findViolation();
+                assertTrue(violation.isEmpty(), () -> name + " round " + currentRound + ": " + violation.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test the checker rejects a stale read")
+    void testCheckerDetectsViolation() {
+        // Given: an update completes before a find starts, yet the find returns the old message
+        LinearizabilityChecker checker = new LinearizabilityChecker();
+        long saved = checker.invoke();
+        checker.completed("1", LinearizabilityChecker.Kind.SAVE, "first", 0, saved, Optional.of(new User("1", "first", "John", 1)));
+        long updated = checker.invoke();
+        checker.completed("1", LinearizabilityChecker.Kind.UPDATE, "second", 0, updated, Optional.of(new User("1", "second", "John", 2)));
+        long found = checker.invoke();
+        checker.completed("1", LinearizabilityChecker.Kind.FIND, null, 0, found, Optional.of(new User("1", "first", "John", 1)));
+
+        // When
+        Optional<String> violation = checker.findViolation();
+
+        // Then
+        assertTrue(violation.isPresent());
+    }
+
+    @Test
+    @DisplayName("Test the checker accepts a read overlapping an update")
+    void testCheckerAcceptsOverlap() {
+        // Given: the find overlaps the update, so either message is a valid result
+        LinearizabilityChecker checker = new LinearizabilityChecker();
+        long saved = checker.invoke();
+        checker.completed("1", LinearizabilityChecker.Kind.SAVE, "first", 0, saved, Optional.of(new User("1", "first", "John", 1)));
+        long updated = checker.invoke();
+        long found = checker.invoke();
+        checker.completed("1", LinearizabilityChecker.Kind.FIND, null, 0, found, Optional.of(new User("1", "second", "John", 2)));
+        checker.completed("1", LinearizabilityChecker.Kind.UPDATE, "second", 0, updated, Optional.of(new User("1", "second", "John", 2)));
+
+        // When
+        Optional<String> violation = checker.findViolation();
+
+        // Then
+        assertTrue(violation.isEmpty());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("backends")
+    @DisplayName("Test throughput is reported from 1 to N threads")
+    void testThroughputScaling(String name, Supplier<UserDAO> backend) throws Exception {
+        StringBuilder report = new StringBuilder(String.format("Throughput of %s store (%d cpus):%n  threads      ops/s  speedup%n",
+                name, Runtime.getRuntime().availableProcessors()));
+        // Untimed pass so the single thread baseline is not measured with cold code
+        UserDAO warmUp = backend.get();
+        measureThroughput(warmUp, List.of(warmUp.save(new User(null, "warm-up", "Stress")).getId()), 1, THROUGHPUT_OPERATIONS);
+
+        double baseline = 0;
+        for (int threads = 1; threads <= THREADS; threads *= 2) {
+            // Given
+            UserDAO userDAO = backend.get();
+            List<String> ids = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                ids.add(userDAO.save(new User(null, "initial-" + i, "Stress")).getId());
+            }
+
+            // When
+            double opsPerSecond = measureThroughput(userDAO, ids, threads, THROUGHPUT_OPERATIONS / threads);
+
+            // Then
+            assertTrue(opsPerSecond > 0);
+            if (threads == 1) {
+                baseline = opsPerSecond;
+            }
+            report.append(String.format("  %7d %10.0f %7.2fx%n", threads, opsPerSecond, opsPerSecond / baseline));
+        }
+        log.info(report.toString());
+    }
+
+    private static void runRandomOperations(UserDAO userDAO, LinearizabilityChecker checker, List<String> ids, int worker) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Versions this worker last observed, used as the expectation of its compare-and-set calls
+        Map<String, Long> seenVersions = new HashMap<>();
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            String message = "w" + worker + "-" + i;
+            int choice = random.nextInt(100);
+            long invokedAt = checker.invoke();
+            if (choice < 10) {
+                User saved = userDAO.save(new User(null, message, "Stress"));
+                checker.completed(saved.getId(), LinearizabilityChecker.Kind.SAVE, message, 0, invokedAt, Optional.of(saved));
+                ids.add(saved.getId());
+            } else if (choice < 45) {
+                Optional<User> found = userDAO.findById(id);
+                checker.completed(id, LinearizabilityChecker.Kind.FIND, null, 0, invokedAt, found);
+                found.ifPresent(greeting -> seenVersions.put(id, greeting.getVersion()));
+            } else if (choice < 65) {
+                Optional<User> updated = userDAO.update(id, new User(null, message, "Stress"));
+                checker.completed(id, LinearizabilityChecker.Kind.UPDATE, message, 0, invokedAt, updated);
+                updated.ifPresent(greeting -> seenVersions.put(id, greeting.getVersion()));
+            } else if (choice < 90) {
+                long expectedVersion = seenVersions.getOrDefault(id, 1L);
+                try {
+                    Optional<User> updated = userDAO.update(id, new User(null, message, "Stress"), expectedVersion);
+                    checker.completed(id, LinearizabilityChecker.Kind.COMPARE_AND_SET, message, expectedVersion, invokedAt, updated);
+                    updated.ifPresent(greeting -> seenVersions.put(id, greeting.getVersion()));
+                } catch (VersionConflictException e) {
+                    checker.completed(id, LinearizabilityChecker.Kind.COMPARE_AND_SET, message, expectedVersion, invokedAt,
+                            LinearizabilityChecker.Outcome.CONFLICT, null, e.getCurrentVersion());
+                    seenVersions.put(id, e.getCurrentVersion());
+                }
+            } else {
+                boolean deleted = userDAO.delete(id);
+                checker.completed(id, LinearizabilityChecker.Kind.DELETE, null, 0, invokedAt,
+                        deleted ? LinearizabilityChecker.Outcome.DELETED : LinearizabilityChecker.Outcome.ABSENT, null, 0);
+            }
+        }
+    }
+
+    private static double measureThroughput(UserDAO userDAO, List<String> ids, int threads, int operationsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        String id = ids.get(random.nextInt(ids.size()));
+                        int choice = random.nextInt(100);
+                        if (choice < 70) {
+                            userDAO.findById(id);
+                        } else if (choice < 95) {
+                            userDAO.update(id, new User(null, "updated", "Stress"));
+                        } else {
+                            userDAO.exists(id);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            long elapsed = System.nanoTime() - startedAt;
+            return (double) threads * operationsPerThread * 1_000_000_000L / elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
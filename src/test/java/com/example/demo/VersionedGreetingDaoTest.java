@@ -0,0 +1,101 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedGreetingDaoTest {
+
+    private UserDaoImpl userDAO;
+
+    @BeforeEach
+    void setUp() {
+        userDAO = new UserDaoImpl();
+    }
+
+    @Test
+    @DisplayName("Test every update increments the version")
+    void testVersionIncrements() {
+        // Given
+        User created = userDAO.save(new User(null, "Hello", "John"));
+
+        // When
+        User updated = userDAO.update(created.getId(), new User(null, "Hi", "John")).orElseThrow();
+        userDAO.updateWhere(new GreetingFilter("John", null, null, null), greeting -> greeting);
+
+        // Then
+        assertEquals(1, created.getVersion());
+        assertEquals(2, updated.getVersion());
+        assertEquals(3, userDAO.findById(created.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("Test compare-and-set rejects a stale version")
+    void testStaleVersionRejected() {
+        // Given
+        User created = userDAO.save(new User(null, "Hello", "John"));
+        userDAO.update(created.getId(), new User(null, "Hi", "John"), 1);
+
+        // When
+        VersionConflictException e = assertThrows(VersionConflictException.class,
+                () -> userDAO.update(created.getId(), new User(null, "Lost", "John"), 1));
+
+        // Then
+        assertEquals(2, e.getCurrentVersion());
+        assertEquals("Hi", userDAO.findById(created.getId()).orElseThrow().getMessage());
+    }
+
+    @Test
+    @DisplayName("Test compare-and-set on a missing greeting returns empty")
+    void testMissingGreeting() {
+        assertTrue(userDAO.update("999", new User(null, "Hello", "John"), 1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test concurrent compare-and-set updates never lose an update")
+    void testNoLostUpdates() throws Exception {
+        // Given
+        User created = userDAO.save(new User(null, "0", "John"));
+        int threads = 8;
+        int incrementsPerThread = 500;
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When: every thread increments the counter held in the message with a read, CAS, retry loop
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < incrementsPerThread; i++) {
+                    while (true) {
+                        User current = userDAO.findById(created.getId()).orElseThrow();
+                        String next = String.valueOf(Integer.parseInt(current.getMessage()) + 1);
+                        try {
+                            userDAO.update(created.getId(), new User(null, next, "John"), current.getVersion());
+                            break;
+                        } catch (VersionConflictException e) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        User result = userDAO.findById(created.getId()).orElseThrow();
+        assertEquals(String.valueOf(threads * incrementsPerThread), result.getMessage());
+        assertEquals(1 + threads * incrementsPerThread, result.getVersion());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"greetings.warm-up.enabled=true", "greetings.warm-up.iterations=500", "greetings.tracing.sample-rate=1"})
+public class WarmUpReadinessTest {
+
+    @Autowired
+    private GreetingWarmUp warmUp;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private GreetingChangeLog changeLog;
+
+    @Autowired
+    private LatencyHistograms histograms;
+
+    @Test
+    @DisplayName("Test readiness accepts traffic only after the warm-up ran against the server")
+    void testReadyAfterWarmUp() {
+        // Then
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+        assertNotNull(warmUp.getResult());
+        assertEquals(500, warmUp.getResult().iterations());
+        assertEquals(500 * 2 + 63 * 2, warmUp.getResult().serverRequests());
+        // The requests sent to the server leave the live store unchanged
+        assertTrue(userDAO.findAll().isEmpty());
+        assertEquals(0, changeLog.getSequence());
+        // Nor do they show up in the request latencies
+        assertTrue(histograms.summaries().isEmpty());
+    }
+}